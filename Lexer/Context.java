@@ -1,10 +1,91 @@
 package lexer;
 
+import java.nio.ByteBuffer;
+
 public class Context
 {
-	private int transitionTable[][];
-	private String description[];
-	private String keywords[];
+	//the name of every state, for accepting states it is the token class
+	private static final String description[] = 
+	{
+		"initial",			//0
+		"just a - sign",		//1
+		"integer",			//2*
+		"input \"",		//3
+		"incomplete short string with 1 character",		//4
+		"incomplete short string with 2 characters",		//5
+		"incomplete short string with 3 characters",		//6
+		"incomplete short string with 4 characters",		//7
+		"incomplete short string with 5 characters",		//8
+		"incomplete short string with 6 characters",		//9
+		"incomplete short string with 7 characters",		//10
+		"incomplete short string with 8 characters",		//11
+		"short string",			//12*
+		"user-defined name",	//13*
+		"comparison symbol",	//14*
+		"comparison symbol",	//15*
+		"space",				//16
+		"newline",			//17
+		"grouping symbol",		//18*
+		"grouping symbol",		//19*
+		"grouping symbol",		//20*
+		"grouping symbol",		//21*
+		"grouping symbol",		//22*
+		"grouping symbol",		//23*
+		"assignment operator",	//24*
+		"comparison symbol",	//25*
+		"boolean operator",		//26*
+		"boolean operator",		//27*
+		"boolean operator",		//28*
+		"number operator",		//29*
+		"number operator",		//30*
+		"number operator",		//31*
+		"control structure",		//32*
+		"control structure",		//33*
+		"control structure",		//34*
+		"control structure",		//35*
+		"control structure",		//36*
+		"io command",			//37*
+		"io command",			//38*
+		"halt",				//39*
+		"procedure",			//40*
+		"done",				//41
+////error states		
+		"invalid character",		//42
+		"just a - sign",			//43
+		"invalid integer",		//44
+		"integer cannot start with 0",		//45
+		"invalid user-defined name",		//46
+		"short string too long",			//47
+		"invalid character in short string",	//48
+	};
+	
+	//The transition table is compiled once into a single flat array,
+	//indexed by (state + 1) * CLASSES + the class of the character.
+	//(state -1 is the integer "0", so it gets row 0)
+	//Every entry is the next state + 1 in the low byte, with the
+	//DONE, ERROR and ACCEPTING flags of that next state above it.
+	public static final int CLASSES = 17;
+	public static final int STATE = 0xff;
+	public static final int DONE = 0x100;
+	public static final int ERROR = 0x200;
+	public static final int STOP = DONE | ERROR;
+	public static final int ACCEPTING = 0x400;
+	
+	private static final int INVALID = 16;
+	private static final int ROWS = 50;
+	private static final byte charClass[] = new byte[128];
+	private static final int table[] = new int[ROWS * CLASSES];
+	
+	//keywords are found with a perfect hash on the first two characters and
+	//the length, so every name costs at most one String.equals
+	public static final int FIRST_KEYWORD = 25;
+	private static final String keywords[] = 
+	{
+		"eq","and","or","not","add","sub","mult","if",
+		"then","else","while","for","input","output","halt","proc"
+	};
+	private static final String keywordSlot[] = new String[32];
+	private static final int keywordState[] = new int[32];
 	
 	/*	note: states are represented as integers
 	
@@ -13,6 +94,10 @@ public class Context
 		public int getNextState(int state, char x)
 		//based on a current state and an input character, 
 			this function returns the next state
+		
+		public int step(int state, int x)
+		//the same as getNextState, but it returns the table entry
+			with the flags, stateOf(entry) gives the next state
 				
 		public String getDescription(int state)
 		//if the state is accepting, then it gives the name of the
@@ -29,9 +114,16 @@ public class Context
 		public int isKeyword(String word)
 		//checks whether an word is part of the
 			keywords or special words that we have
+		
+		public int tokenCode(int state, String snippet)
+		//the TokenKind code of a token that ended in the given state,
+			names that are keywords get the keyword's kind
+
+		public int tokenCode(String tokenClass, String snippet)
+		//the same, for a token that only has its class and snippet
 	*/
 	
-	Context()
+	static
 	{
 		//fill the transitionTable
 		int contents[][] = 
@@ -53,89 +145,65 @@ public class Context
 				{41, 41, 41, 41, 41, 41, 41, 41, 41, 41, 41, 41, 41, 41, 41, 41},	//12*- closing "
 				{13, 13, 13, 41, 41, 41, 41, 41, 41, 41, 41, 41, 41, 41, 41, 41}		//13*- user defined name
 		};
-		transitionTable = contents;
-		
-		//fill Description array
-		String contents2[] = 
-		{
-			"initial",			//0
-			"just a - sign",		//1
-			"integer",			//2*
-			"input \"",		//3
-			"incomplete short string with 1 character",		//4
-			"incomplete short string with 2 characters",		//5
-			"incomplete short string with 3 characters",		//6
-			"incomplete short string with 4 characters",		//7
-			"incomplete short string with 5 characters",		//8
-			"incomplete short string with 6 characters",		//9
-			"incomplete short string with 7 characters",		//10
-			"incomplete short string with 8 characters",		//11
-			"short string",			//12*
-			"user-defined name",	//13*
-			"comparison symbol",	//14*
-			"comparison symbol",	//15*
-			"space",				//16
-			"newline",			//17
-			"grouping symbol",		//18*
-			"grouping symbol",		//19*
-			"grouping symbol",		//20*
-			"grouping symbol",		//21*
-			"grouping symbol",		//22*
-			"grouping symbol",		//23*
-			"assignment operator",	//24*
-			"comparison symbol",	//25*
-			"boolean operator",		//26*
-			"boolean operator",		//27*
-			"boolean operator",		//28*
-			"number operator",		//29*
-			"number operator",		//30*
-			"number operator",		//31*
-			"control structure",		//32*
-			"control structure",		//33*
-			"control structure",		//34*
-			"control structure",		//35*
-			"control structure",		//36*
-			"io command",			//37*
-			"io command",			//38*
-			"halt",				//39*
-			"procedure",			//40*
-			"done",				//41
-	////error states		
-			"invalid character",		//42
-			"just a - sign",			//43
-			"invalid integer",		//44
-			"integer cannot start with 0",		//45
-			"invalid user-defined name",		//46
-			"short string too long",			//47
-			"invalid character in short string",	//48
-		};
-		description = contents2;
 		
-		String contents3[] = 
-		{
-			"eq","and","or","not","add","sub","mult","if",
-			"then","else","while","for","input","output","halt","proc"
-		};
-		keywords = contents3;
+		//character classes, anything that is not in here is an invalid character
+		for (int i = 0; i < charClass.length; i++)
+			charClass[i] = INVALID;
+		for (char x = 'a'; x <= 'z'; x++)
+			charClass[x] = 0;
+		charClass['0'] = 1;
+		for (char x = '1'; x <= '9'; x++)
+			charClass[x] = 2;
+		charClass['<'] = 3;
+		charClass['>'] = 4;
+		charClass['"'] = 5;
+		charClass[' '] = 6;
+		charClass['\r'] = 7;
+		charClass['\n'] = 7;
+		charClass['('] = 8;
+		charClass[')'] = 9;
+		charClass['{'] = 10;
+		charClass['}'] = 11;
+		charClass[','] = 12;
+		charClass[';'] = 13;
+		charClass['='] = 14;
+		charClass['-'] = 15;
 		
-		//stateTable = new boolean[85];
-		//description = new String[85];
+		//states up to 13 follow the table and go to 42 on an invalid character,
+		//state -1 and states 14 and up are done on whatever comes next
+		for (int state = -1; state < ROWS - 1; state++)
+			for (int x = 0; x < CLASSES; x++)
+			{
+				int next = 41;
+				if (state >= 0 && state <= 13)
+					next = (x == INVALID) ? 42 : contents[state][x];
+				table[(state + 1) * CLASSES + x] = encode(next);
+			}
 		
-	};
+		for (int i = 0; i < keywords.length; i++)
+		{
+			int h = hash(keywords[i]);
+			keywordSlot[h] = keywords[i];
+			keywordState[h] = i + FIRST_KEYWORD;
+		}
+	}
 	
 	public int getNextState(int state, char x)
 	{
-		//special zero case
-		if (state == -1) return 41;
-		
-		if (state > 13) return 41;
-		
-		int index = getCharIndex(x);
-		if (index == -1) return 42;	//invalid character
-		return transitionTable[state][getCharIndex(x)];
+		return stateOf(step(state, x));
+	}
+	
+	public static int step(int state, int x)
+	{
+		return table[(state + 1) * CLASSES + (x < 128 ? charClass[x] : INVALID)];
 	}
 	
-	public String getDescription(int state)
+	public static int stateOf(int entry)
+	{
+		return (entry & STATE) - 1;
+	}
+	
+	public static String getDescription(int state)
 	{
 		//special zero  case
 		if (state == -1) return "integer";
@@ -144,56 +212,97 @@ public class Context
 	
 	public boolean isAccepting(int state)
 	{
-		if (state == -1) return true;
-		if (state == 2) return true;
-		if (state > 11 && state < 16) return true;
-		if (state > 17 && state < 41) return true;
-		return false;
+		return accepting(state);
 	}
 	
-	public int isKeyword(String word)
+	public static int isKeyword(String word)
 	{
 		//returns -1 if it is not keword
 		//else returns the state
 		
-		for (int i = 0; i < keywords.length; i++) 
-			if (word.equals(keywords[i]))
-				return i + 25;
-		
+		if (word.length() < 2 || word.length() > 6)
+			return -1;
 		
+		int h = hash(word);
+		if (word.equals(keywordSlot[h]))
+			return keywordState[h];
 		return -1;
 	}
 	
-	//helper functions
-	private int getCharIndex(char x)
-	{
-		//if it is a smaller case letter of the alphabet
-		if ((int) x > 96 && (int) x < 123)
-			return 0;
-		//x is zero
-		if (x == '0')
-			return 1;
-		//x is Dpos
-		if ( (int) x > 48 && (int) x < 58)
-			return 2;
+	//the same check straight on the source bytes, so no String is needed
+	public static int isKeyword(ByteBuffer text, int start, int length)
+	{
+		if (length < 2 || length > 6)
+			return -1;
 		
-		switch (x)
+		int h = hash(text.get(start), text.get(start + 1), length);
+		String word = keywordSlot[h];
+		if (word == null || word.length() != length)
+			return -1;
+		for (int i = 0; i < length; i++)
+			if (text.get(start + i) != word.charAt(i))
+				return -1;
+		return keywordState[h];
+	}
+	
+	public static int tokenCode(int state, String snippet)
+	{
+		if (state == 13)
 		{
-			case '<' : return 3;
-			case '>' : return 4;
-			case '"' : return 5;
-			case ' ' : return 6;
-			case '\r' : return 7;
-			case '\n' : return 7;
-			case '(' : return 8;
-			case ')' : return 9;
-			case '{' : return 10;
-			case '}' : return 11;
-			case ',' : return 12;
-			case ';' : return 13;
-			case '=' : return 14;
-			case '-' : return 15;
-		}//*/
-		return -1;
+			int keyword = isKeyword(snippet);
+			if (keyword > 0) state = keyword;
+		}
+		return TokenKind.forState(state).code();
+	}
+	
+	public static int tokenCode(int state, ByteBuffer text, int start, int length)
+	{
+		if (state == 13)
+		{
+			int keyword = isKeyword(text, start, length);
+			if (keyword > 0) state = keyword;
+		}
+		return TokenKind.forState(state).code();
+	}
+	
+	//for tokens that were read back from a file and only have their class and snippet
+	public static int tokenCode(String tokenClass, String snippet)
+	{
+		if (tokenClass.equals("integer")) return TokenKind.INTEGER.code();
+		if (tokenClass.equals("short string")) return TokenKind.SHORT_STRING.code();
+		if (tokenClass.equals("user-defined name")) return TokenKind.NAME.code();
+		if (tokenClass.equals("keyword")) return TokenKind.forState(isKeyword(snippet)).code();
+		//symbols are a single character
+		return TokenKind.forState(stateOf(step(0, snippet.charAt(0)))).code();
+	}
+	
+	//the keywords all land in different slots
+	private static int hash(String word)
+	{
+		return hash(word.charAt(0), word.charAt(1), word.length());
+	}
+	
+	private static int hash(int first, int second, int length)
+	{
+		return (first + (second << 3) + 3 * length) & 31;
+	}
+	
+	//helper functions
+	private static boolean accepting(int state)
+	{
+		if (state == -1) return true;
+		if (state == 2) return true;
+		if (state > 11 && state < 16) return true;
+		if (state > 17 && state < 41) return true;
+		return false;
+	}
+	
+	private static int encode(int next)
+	{
+		int entry = next + 1;
+		if (next == 41) entry |= DONE;
+		if (next > 41) entry |= ERROR;
+		if (accepting(next)) entry |= ACCEPTING;
+		return entry;
 	}
 }
\ No newline at end of file
@@ -3,74 +3,146 @@ package lexer;
 import java.io.*;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Scanner;
 
 public class Lexer
 {
-	private Context context;
-	private TokenList lst = new TokenList();
+	private TokenBuffer tokens;
+	private TokenSink sink;
+	private ByteBuffer input;
+	private boolean readFailed;
 	//So this baby has to take in input
 	public Lexer (String splFile) {
+		this(splFile, false);
+	}
+	
+	//parallel splits the file into pieces that are lexed on all cores, see ParallelLexer
+	public Lexer (String splFile, boolean parallel) {
 		
 		System.out.println("Starting lexing process: ");
-		context = new Context();
-		File file = new File(splFile);
 
 	    try {
-	        Scanner sc = new Scanner(file);
-	        sc.useDelimiter("");
-
+	    	//The whole file is mapped into memory and read byte by byte. SPL only uses
+	    	//ASCII characters, so a byte is a character.
+	        FileInputStream in = new FileInputStream(splFile);
+	        FileChannel channel = in.getChannel();
+	        ByteBuffer input = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+	        in.close();
+	        
+	        if (parallel)
+	        	tokens = ParallelLexer.lex(input);
+	        else
+	        	lex(input, 1);
+	        System.out.println("--------------------------------------------------- ");
+	        System.out.println("File passed lexing phase ");
+	    } 
+	    catch (FileNotFoundException e) {
+	        //e.printStackTrace();
+		    
+			System.out.println("Error opening file: " + splFile);
+			System.out.println("..are you sure it exists?");
+			noTokens();
+	    }
+	    catch (IOException e) {
+			System.out.println("Error reading file: " + splFile);
+			noTokens();
+	    }
+	};
+	
+	//A file that could not be read has no tokens, and the Mains can see why
+	private void noTokens() {
+		readFailed = true;
+		tokens = new TokenBuffer(ByteBuffer.allocate(0));
+	}
+	
+	//whether the file could not be opened or read, the error has been printed
+	public boolean readFailed() {
+		return readFailed;
+	}
+	
+	//For source that is already in memory
+	public Lexer (ByteBuffer input) {
+		
+		System.out.println("Starting lexing process: ");
+		lex(input, 1);
+		System.out.println("--------------------------------------------------- ");
+		System.out.println("File passed lexing phase ");
+	};
+	
+	//Lexes the input from its position to its limit without printing
+	//anything, the first character is on line firstLine. TokenEdit uses
+	//this for the lines that were edited, a CompileServer for every file.
+	public Lexer (ByteBuffer input, int firstLine) {
+		lex(input, firstLine);
+	}
+	
+	//Hands every token to the sink as soon as it is found instead of keeping
+	//them, without printing anything. TokenRing uses this to lex on a thread
+	//of its own while the parser reads the tokens.
+	public Lexer (ByteBuffer input, TokenSink sink) {
+		this.sink = sink;
+		lex(input, 1);
+	}
+	
+	private void lex(ByteBuffer input, int firstLine) {
+	        this.input = input;
+	        if (sink == null)
+	        	sink = tokens = new TokenBuffer(input);
 	        int state = 0; 
-	        String snippet = "";
 	        boolean consume = true;
 	        char c = '-';  
-
-	        //this is for debugging purposes 
-	        String numbas = "0 ";
+	        int entry, prev;
+	        
+	        //The snippet is not copied, only where it starts in the input and how long it is.
+	        //at is where c is in the input.
+	        int start = 0, length = 0, line = firstLine, startLine = firstLine;
+	        int at = input.position();
 
 			// TODO: something to do with isAccepting (even though the DFA gets to a done state?)
 
 			//This loop goes through each character and adds tokens to the list or errors out 
-	        while (sc.hasNext()) {
+	        while (input.hasRemaining()) {
 	        	//The variable consume is used to protect against multiple spaces and consuming more than you should
-	        	//It kind of acts as a peek() method, but there is no peek() for Scanner objects. 
-	        	if (consume) 
-	            	 c = sc.next().charAt(0);
-	            else 
+	        	//It kind of acts as a peek() method, so a character is only read once it has been used. 
+	        	if (consume) {
+	        		if (c == '\n') line++;
+	        		at = input.position();
+	            	c = (char) (input.get() & 0xff);
+	            } else 
 	            	consume = true; 
 	            
-	            String type = context.getDescription(state);
-	            state = context.getNextState(state, c);
+	            //one table lookup per character, the flags say whether the token is over
+	            prev = state;
+	            entry = Context.step(state, c);
+	            state = Context.stateOf(entry);
 
-	            if (state < 41) {
-	            	snippet += c; 
+	            if ((entry & Context.STOP) == 0) {
+	            	if (length++ == 0) {
+	            		start = at;
+	            		startLine = line;
+	            	}
 	            } else {
 	            	consume = false; 
 	            }
 
-	        	numbas += state + " ";
-
-	        	if (state > 40) {
-		            if (state == 41) {
-		            	if (type.equals("space") || type.equals("newline")) {}
-		            	else if (context.isKeyword(snippet) > 0 ) {
-		            		type = "keyword";
-		            		lst.addToken(type, snippet);
-		            	} else {
-		            		lst.addToken(type, snippet);
-		            	}
+	        	if ((entry & Context.STOP) != 0) {
+		            if ((entry & Context.DONE) != 0) {
+		            	//spaces and newlines are not tokens
+		            	if (prev == 16 || prev == 17) {}
+		            	else addToken(prev, start, length, startLine);
 		            	
-		            } else if (state > 41) {
-		            	snippet += c; 
-		            	System.out.println("Lexical Error: |" + snippet + "| = " + context.getDescription(state) + ". Scanning aborted.");
-		            	System.exit(1);
-		            	//System.out.println("ERROR " + context.getDescription(state) +  ": " + snippet);
-		            	//TODO: error out and say why 
+		            } else {
+		            	if (length++ == 0) {
+		            		start = at;
+		            		startLine = line;
+		            	}
+		            	throw error(state, start, length, startLine);
 		            } 
 	            
-	            	snippet = "";
+	            	length = 0;
 	            	state = 0; 
-	            	numbas = state + " ";
 	            }
 	        }	
 
@@ -79,33 +151,30 @@ public class Lexer
 	        //It handles a case where there is only one inverted comma followed by nothing
 	        
 	        if (state >= 3 && state <= 11 && state != -1) {        		
-        		System.out.println("Lexical Error: |" + snippet + "| = " + context.getDescription(state) + ". Scanning aborted.");
-        		System.exit(1);
+        		throw error(state, start, length, startLine);
         	}
 	        
 
-	        String type = "";
-	        
 	        for (int i = 0; i < 2; i++) {
-		        type = context.getDescription(state);
-		        state = context.getNextState(state, c);
+		        prev = state;
+		        entry = Context.step(state, c);
+		        state = Context.stateOf(entry);
 		        
-		        if (type.equals("initial"))
-		        	snippet += c; 
+		        //still in the initial state, so c starts a new token
+		        if (prev == 0) {
+		        	start = at;
+		        	startLine = line;
+		        	length = 1;
+		        }
 		        
 
-		        if (state == 41) {
-	            	if (type.equals("space") || type.equals("newline") || type.equals("done")) {}
-	            	else if (context.isKeyword(snippet) > 0 ) {
-	            		type = "keyword";
-	            		lst.addToken(type, snippet);
-	            	} else {
-	            		lst.addToken(type, snippet);
-	            	}
-	            	
-		        } else if (state > 41) {
-		        	System.out.println("Lexical Error: |" + snippet + "| = " + context.getDescription(state) + ". Scanning aborted.");
-			        System.exit(1);
+		        if ((entry & Context.DONE) != 0) {
+	            	//spaces and newlines are not tokens
+	            	if (prev == 16 || prev == 17) {}
+	            	else addToken(prev, start, length, startLine);
+	            	state = 0;
+		        } else if ((entry & Context.ERROR) != 0) {
+		        	throw error(state, start, length, startLine);
 		        }
 		        c = ' ';
 	        }
@@ -114,28 +183,50 @@ public class Lexer
 	        //.spl file then the state is initial and it doesn't see the problem Only after artificial spaces
 	        //are added that it sees the issue. 
 	        if (state >= 3 && state <= 11) {        		
-        		System.out.println("Lexical Error: |" + snippet + "| = " + context.getDescription(state) + ". Scanning aborted.");
-        		System.exit(1);
+        		throw error(state, start, length, startLine);
         	}
 	        
-	        sc.close();
-		System.out.println("--------------------------------------------------- ");
-		System.out.println("File passed lexing phase ");
-		toFile();
-	    } 
-	    catch (FileNotFoundException e) {
-	        //e.printStackTrace();
-		    
-			System.out.println("Error opening file: " + splFile);
-			System.out.println("..are you sure it exists?");
-	    }
 	};
 	
+	//The snippet stops at the end of the input, an unfinished token at the
+	//end counts one character more than there is
+	private LexicalException error(int state, int start, int length, int line)
+	{
+		length = Math.min(length, input.limit() - start);
+		char chars[] = new char[length];
+		for (int i = 0; i < length; i++)
+			chars[i] = (char) (input.get(start + i) & 0xff);
+		return new LexicalException(line, new String(chars), Context.getDescription(state));
+	}
+	
+	//The token gets its terminal code here, so nothing after the lexer has to
+	//look at the snippet again to work out what it is. Only names can be keywords.
+	private void addToken(int state, int start, int length, int line)
+	{
+		sink.addToken(Context.tokenCode(state, input, start, length), start, length, line);
+	}
+	
+	//the tokens stay in memory, this is what the Parser pulls from
+	public TokenSource getTokens()
+	{
+		return tokens.source();
+	}
+	
+	public TokenBuffer getTokenBuffer()
+	{
+		return tokens;
+	}
+	
+	//only needed when the parser runs as a separate process
 	public void toFile()
+	{
+		toFile("lexeroutput");
+	}
+	
+	public void toFile(String file)
 	{
 		try
 		{
-			String file = "lexeroutput";
 			Scanner scan = new Scanner(System.in);
 
 			FileWriter fw = new FileWriter(file);
@@ -147,11 +238,25 @@ public class Lexer
 		catch (IOException e)
 		{
 			//e.printStackTrace();
-			System.out.println("Error opening file: lexeroutput");
+			System.out.println("Error opening file: " + file);
+		}
+	}
+
+	//the same tokens in the binary format, see TokenFileWriter
+	public void toTokenFile(String file)
+	{
+		try
+		{
+			TokenFileWriter.write(tokens, file);
+			System.out.println("Lexical Analysis output saved to file '"+ file +"\n---------------------------------------------'");
+		}
+		catch (IOException e)
+		{
+			System.out.println("Error opening file: " + file);
 		}
 	}
 
 	public String toString() {
-		return lst.toString();
+		return tokens.toString();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package lexer;
+
+/*	Thrown by the Lexer when the source has something that is not a token.
+
+	It used to print the message and stop the whole program, now the
+	caller decides: the Mains still print it and exit, a CompileServer
+	reports it and goes on with the next file.
+
+	public int line
+	//the line the bad snippet starts on
+	public String snippet
+	public String description
+	//what was read and what the lexer says is wrong with it
+*/
+public class LexicalException extends RuntimeException
+{
+	private static final long serialVersionUID = 1L;
+
+	public final int line;
+	public final String snippet;
+	public final String description;
+
+	public LexicalException(int line, String snippet, String description)
+	{
+		super("Lexical Error: |" + snippet + "| = " + description + ". Scanning aborted.");
+		this.line = line;
+		this.snippet = snippet;
+		this.description = description;
+	}
+}
@@ -1,4 +1,5 @@
 import java.io.*;
+import java.util.Arrays;
 import java.util.Scanner;
 import lexer.*;
 
@@ -104,10 +105,30 @@ public class Main
 			curstate = c1.getNextState(curstate, ';');		
 			System.out.println("udn1: " + curstate + ":"+ c1.getDescription(curstate));
 			*/
-			if(args.length == 0) {
+			//the file is the first argument that is not a flag, so it can come after them
+			String file = null;
+			for (String arg : args)
+				if (file == null && !arg.equals("-p") && !arg.equals("-b"))
+					file = arg;
+			if(file == null) {
 				System.out.println("Please put in the name of the file you would like to Lexically Analyse.");
 			} else {
-				Lexer lex = new Lexer(args[0]);
+				Lexer lex;
+				try {
+					//-p lexes a big file on all cores
+					lex = new Lexer(file, Arrays.asList(args).contains("-p"));
+				} catch (LexicalException e) {
+					System.out.println(e.getMessage());
+					System.exit(1);
+					return;
+				}
+				if (lex.readFailed())
+					System.exit(1);
+				//-b writes the binary "lexeroutput.tok" instead of the text file
+				if (Arrays.asList(args).contains("-b"))
+					lex.toTokenFile("lexeroutput.tok");
+				else
+					lex.toFile();
 				//System.out.print(lex);
 
 				//~ String file = "../lexeroutput";
@@ -0,0 +1,100 @@
+package lexer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.*;
+
+/*	Lexes a big file on all cores at once.
+
+	No token has a newline in it (a short string that gets to one is an
+	error, every other token stops at white space), so the lexer is in
+	its start state right after every newline. The input is cut into one
+	piece per thread just after a newline, the pieces are lexed on their
+	own and their tokens are put together again in order. The tokens
+	are numbered by where they end up, the lines are moved on by the
+	newlines of the pieces before them.
+
+	public static TokenBuffer lex(ByteBuffer input)
+	//lexes from the input's position to its limit, small inputs are not
+		worth splitting and get one piece
+
+	public static TokenBuffer lex(ByteBuffer input, int pieces)
+	//the same with at most that many pieces
+
+	Both throw the LexicalException of the first piece that has one, which
+	is the same error lexing it all in one go would give.
+*/
+public class ParallelLexer
+{
+	//a piece is never smaller than this
+	private static final int MIN_PIECE = 1 << 20;
+
+	public static TokenBuffer lex(ByteBuffer input)
+	{
+		int pieces = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), input.remaining() / MIN_PIECE));
+		return lex(input, pieces);
+	}
+
+	public static TokenBuffer lex(final ByteBuffer input, int pieces)
+	{
+		int from = input.position(), to = input.limit();
+		int cut[] = new int[pieces + 1];
+		int count = 0;
+		cut[0] = from;
+		for (int i = 1; i < pieces; i++)
+		{
+			int at = Math.max(cut[count], from + (int) ((long) (to - from) * i / pieces));
+			while (at < to && input.get(at) != '\n')
+				at++;
+			if (at < to)
+				at++;
+			if (at > cut[count] && at < to)
+				cut[++count] = at;
+		}
+		cut[++count] = to;
+
+		ArrayList<ForkJoinTask<TokenBuffer>> lexed = new ArrayList<ForkJoinTask<TokenBuffer>>();
+		final int newlines[] = new int[count];
+		final LexicalException errors[] = new LexicalException[count];
+		for (int i = 0; i < count; i++)
+		{
+			final int piece = i, start = cut[i], end = cut[i + 1];
+			lexed.add(ForkJoinPool.commonPool().submit(new Callable<TokenBuffer>() {
+				public TokenBuffer call() {
+					for (int j = start; j < end; j++)
+						if (input.get(j) == '\n')
+							newlines[piece]++;
+					ByteBuffer slice = input.duplicate();
+					slice.position(start);
+					slice.limit(end);
+					try
+					{
+						return new Lexer(slice, 1).getTokenBuffer();
+					}
+					catch (LexicalException e)
+					{
+						errors[piece] = e;
+						return null;
+					}
+				}
+			}));
+		}
+
+		TokenBuffer tokens = new TokenBuffer(input);
+		int lines = 0;
+		for (int i = 0; i < count; i++)
+		{
+			TokenBuffer piece = lexed.get(i).join();
+			if (piece == null)
+			{
+				for (int j = i + 1; j < count; j++)
+					lexed.get(j).cancel(false);
+				LexicalException e = errors[i];
+				throw new LexicalException(e.line + lines, e.snippet, e.description);
+			}
+			tokens.addTokens(piece, 0, piece.size(), 0, lines);
+			lines += newlines[i];
+		}
+		return tokens;
+	}
+}
@@ -0,0 +1,190 @@
+package lexer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*	The tokens of a file, kept as parallel arrays instead of one
+	object per token.
+
+	A token is its TokenKind code, where it
+	starts in the source, how long it is and the line it is on.
+	The snippet is only turned into a String when someone asks
+	for it, the source buffer is kept for that.
+*/
+public class TokenBuffer implements TokenSink
+{
+	private ByteBuffer source;
+	private byte code[];
+	private int start[];
+	private int length[];
+	private int line[];
+	private int count;
+
+	public TokenBuffer(ByteBuffer source)
+	{
+		this.source = source;
+		code = new byte[64];
+		start = new int[64];
+		length = new int[64];
+		line = new int[64];
+		count = 0;
+	}
+
+	public void addToken(int code, int start, int length, int line)
+	{
+		if (count == this.code.length)
+			grow();
+		this.code[count] = (byte) code;
+		this.start[count] = start;
+		this.length[count] = length;
+		this.line[count] = line;
+		count++;
+	}
+
+	//copies count tokens of another buffer, starting at first, moving where
+	//they start by shift and their line by lines
+	public void addTokens(TokenBuffer from, int first, int count, int shift, int lines)
+	{
+		while (this.count + count > code.length)
+			grow();
+		System.arraycopy(from.code, first, code, this.count, count);
+		for (int i = 0; i < count; i++)
+		{
+			start[this.count + i] = from.start[first + i] + shift;
+			length[this.count + i] = from.length[first + i];
+			line[this.count + i] = from.line[first + i] + lines;
+		}
+		this.count += count;
+	}
+
+	public int size()
+	{
+		return count;
+	}
+
+	public int code(int i)
+	{
+		return code[i];
+	}
+
+	public TokenKind kind(int i)
+	{
+		return TokenKind.of(code[i]);
+	}
+
+	public int start(int i)
+	{
+		return start[i];
+	}
+
+	public int length(int i)
+	{
+		return length[i];
+	}
+
+	public int line(int i)
+	{
+		return line[i];
+	}
+
+	public String tokenClass(int i)
+	{
+		return TokenKind.of(code[i]).tokenClass;
+	}
+
+	public String snippet(int i)
+	{
+		return text(start[i], length[i]);
+	}
+
+	//any piece of the source, SPL is ASCII so every byte is one character
+	public String text(int from, int length)
+	{
+		char chars[] = new char[length];
+		for (int i = 0; i < length; i++)
+			chars[i] = (char) (source.get(from + i) & 0xff);
+		return new String(chars);
+	}
+
+	public ByteBuffer getSource()
+	{
+		return source;
+	}
+
+	//a cursor over the tokens, the buffer itself is left untouched
+	public TokenSource source()
+	{
+		return source(0);
+	}
+
+	//a cursor whose first next() moves on to token first
+	public TokenSource source(int first)
+	{
+		return new Cursor(first, -1);
+	}
+
+	//a cursor over tokens first up to end - 1 only, after them it is at
+	//the end of the tokens
+	public TokenSource source(int first, int end)
+	{
+		return new Cursor(first, end);
+	}
+
+	private class Cursor implements TokenSource
+	{
+		private int cur;
+		private int end;	//-1 for all of them, even ones added later
+
+		Cursor(int first, int end)
+		{
+			cur = first - 1;
+			this.end = end;
+		}
+
+		public boolean next()
+		{
+			int last = end < 0 ? count : end;
+			if (cur < last)
+				cur++;
+			return cur < last;
+		}
+
+		public int tokenNo()
+		{
+			return cur;
+		}
+
+		public String tokenClass()
+		{
+			return TokenBuffer.this.tokenClass(cur);
+		}
+
+		public String snippet()
+		{
+			return TokenBuffer.this.snippet(cur);
+		}
+
+		public int code()
+		{
+			return code[cur];
+		}
+	}
+
+	//the same text the "lexeroutput" file has always had
+	public String toString()
+	{
+		StringBuilder out = new StringBuilder();
+		for (int i = 0; i < count; i++)
+			out.append(i).append('\t').append(tokenClass(i)).append('\t').append(snippet(i)).append('\n');
+		return out.toString();
+	}
+
+	private void grow()
+	{
+		int size = code.length * 2;
+		code = Arrays.copyOf(code, size);
+		start = Arrays.copyOf(start, size);
+		length = Arrays.copyOf(length, size);
+		line = Arrays.copyOf(line, size);
+	}
+}
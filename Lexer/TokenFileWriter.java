@@ -0,0 +1,120 @@
+package lexer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/*	Writes tokens in the binary token file format, for when the lexer and
+	the parser run as separate processes. parser.TokenFile reads it.
+
+	All numbers are 4 byte big endian ints:
+
+		MAGIC, VERSION
+		number of tokens, number of strings, number of bytes in the string pool
+		one record per token: its TokenKind code, its line and its string
+			(-1 if the kind always has the same text, see TokenKind.text)
+		where every string starts in the pool, and where the pool ends
+		the string pool, one byte per character
+
+	The records all have the same size, so token i is at HEADER + i * RECORD.
+	Every different name, integer and short string is written once.
+
+	public TokenFileWriter(String fileName)
+	public void add(int code, int line, String snippet)
+	public void close()
+	//the records are written as the tokens are added, the header is filled
+		in and the strings are written on close
+
+	public static void write(TokenBuffer tokens, String fileName)
+	//writes all the tokens of a buffer
+*/
+public class TokenFileWriter
+{
+	public static final int MAGIC = 0x5350_4c4b;	//"SPLK"
+	public static final int VERSION = 1;
+	public static final int HEADER = 20;
+	public static final int RECORD = 12;
+
+	private FileOutputStream file;
+	private DataOutputStream out;
+	private int count;
+	private ArrayList<String> strings = new ArrayList<String>();
+	private HashMap<String, Integer> stringIndex = new HashMap<String, Integer>();
+	private int poolBytes;
+
+	public TokenFileWriter(String fileName) throws IOException
+	{
+		file = new FileOutputStream(fileName);
+		out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+		//the header is written again on close, once the numbers are known
+		for (int i = 0; i < HEADER; i++)
+			out.writeByte(0);
+	}
+
+	public void add(int code, int line, String snippet) throws IOException
+	{
+		int text = -1;
+		if (TokenKind.of(code).text == null)
+		{
+			Integer index = stringIndex.get(snippet);
+			if (index == null)
+			{
+				index = strings.size();
+				strings.add(snippet);
+				stringIndex.put(snippet, index);
+				poolBytes += snippet.length();
+			}
+			text = index;
+		}
+		out.writeInt(code);
+		out.writeInt(line);
+		out.writeInt(text);
+		count++;
+	}
+
+	public void close() throws IOException
+	{
+		try
+		{
+			int at = 0;
+			for (String s : strings)
+			{
+				out.writeInt(at);
+				at += s.length();
+			}
+			out.writeInt(at);
+			for (String s : strings)
+				out.writeBytes(s);
+			out.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER);
+			header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(strings.size()).putInt(poolBytes);
+			header.flip();
+			FileChannel channel = file.getChannel();
+			while (header.hasRemaining())
+				channel.write(header, header.position());
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	public static void write(TokenBuffer tokens, String fileName) throws IOException
+	{
+		TokenFileWriter writer = new TokenFileWriter(fileName);
+		try
+		{
+			for (int i = 0; i < tokens.size(); i++)
+			{
+				int code = tokens.code(i);
+				writer.add(code, tokens.line(i), TokenKind.of(code).text == null ? tokens.snippet(i) : null);
+			}
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+}
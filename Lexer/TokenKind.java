@@ -0,0 +1,107 @@
+package lexer;
+
+/*	Every kind of token there is, shared by the lexer and the parser.
+
+	A kind's code is its position in here, which is what the lexer
+	stores for each token (see TokenBuffer), and its terminal is the
+	symbol the parse table uses for it. Going from a token to its parse
+	symbol is one array lookup.
+
+	state is the accepting state of the lexer DFA that the kind
+	comes from (see Context), EOF does not come from the DFA.
+*/
+public enum TokenKind
+{
+	INTEGER(2, "integer", 'b'),
+	SHORT_STRING(12, "short string", 's'),
+	NAME(13, "user-defined name", 'u'),
+	LESS(14, "comparison symbol", '<'),
+	GREATER(15, "comparison symbol", '>'),
+	OPEN_PAREN(18, "grouping symbol", '('),
+	CLOSE_PAREN(19, "grouping symbol", ')'),
+	OPEN_BRACE(20, "grouping symbol", '{'),
+	CLOSE_BRACE(21, "grouping symbol", '}'),
+	COMMA(22, "grouping symbol", ','),
+	SEMICOLON(23, "grouping symbol", ';'),
+	ASSIGN(24, "assignment operator", '='),
+	EQ(25, "keyword", 'e'),
+	AND(26, "keyword", 'a'),
+	OR(27, "keyword", 'o'),
+	NOT(28, "keyword", 'n'),
+	ADD(29, "keyword", 'd'),
+	SUB(30, "keyword", 'q'),
+	MULT(31, "keyword", 'm'),
+	IF(32, "keyword", 'f'),
+	THEN(33, "keyword", 't'),
+	ELSE(34, "keyword", 'l'),
+	WHILE(35, "keyword", 'w'),
+	FOR(36, "keyword", 'r'),
+	INPUT(37, "keyword", 'i'),
+	OUTPUT(38, "keyword", 'z'),
+	HALT(39, "keyword", 'h'),
+	PROC(40, "keyword", 'p'),
+	EOF(-2, "eof", '$');
+
+	public final int state;
+	public final String tokenClass;
+	public final char terminal;
+	public final String text;	//the snippet of every token of this kind, null if it varies
+
+	private static final TokenKind kinds[] = values();
+	private static final TokenKind byState[] = new TokenKind[41];
+	private static final char terminals[] = new char[kinds.length];
+
+	static
+	{
+		for (TokenKind kind : kinds)
+		{
+			if (kind.state >= 0)
+				byState[kind.state] = kind;
+			terminals[kind.ordinal()] = kind.terminal;
+		}
+	}
+
+	TokenKind(int state, String tokenClass, char terminal)
+	{
+		this.state = state;
+		this.tokenClass = tokenClass;
+		this.terminal = terminal;
+		if (state >= 14 && state <= 24)
+			text = String.valueOf(terminal);
+		else if (state >= 25)
+			text = name().toLowerCase();
+		else
+			text = null;
+	}
+
+	public byte code()
+	{
+		return (byte) ordinal();
+	}
+
+	public static TokenKind of(int code)
+	{
+		return kinds[code];
+	}
+
+	//the parse table symbol for a token code
+	public static char terminal(int code)
+	{
+		return terminals[code];
+	}
+
+	//the kind of token the DFA gives when it is done in this state, null if it is not a token
+	public static TokenKind forState(int state)
+	{
+		//"0" is an integer like any other
+		if (state == -1) return INTEGER;
+		if (state < 0 || state >= byState.length) return null;
+		return byState[state];
+	}
+
+	//the symbols that only group things, a pruned tree leaves these out
+	public boolean isGrouping()
+	{
+		return state >= 18 && state <= 23;
+	}
+}
@@ -6,14 +6,21 @@ public class TokenNode
 	public int tokenNo;
 	public String tokenClass;
 	public String snippet;
+	public int code;	//TokenKind code, -1 if it is not a token
 	
 	public TokenNode next;
 	
 	public TokenNode(int number, String tokenClass, String snippet)
+	{
+		this(number, tokenClass, snippet, -1);
+	}
+	
+	public TokenNode(int number, String tokenClass, String snippet, int code)
 	{
 		tokenNo = number;
 		this.tokenClass = tokenClass;
 		this.snippet = snippet;
+		this.code = code;
 		next = null;		
 	}
 }
\ No newline at end of file
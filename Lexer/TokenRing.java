@@ -0,0 +1,201 @@
+package lexer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/*	Hands tokens from a Lexer on one thread to a Parser on another while
+	the lexer is still going, so the two overlap instead of one waiting
+	for the other to finish the whole file.
+
+	The tokens go through a fixed ring of slots with one writer and one
+	reader and no locks: the lexer only moves tail, the parser only moves
+	head. When the ring is full the lexer waits for the parser and when
+	it is empty the parser waits for the lexer.
+
+		TokenRing tokens = TokenRing.lex(input);
+		Parser parser = new Parser(tokens);
+		try { parser.parse(); } finally { tokens.cancel(); }
+
+	public static TokenRing lex(ByteBuffer input)
+	//starts lexing the input on a thread of its own
+
+	public boolean next()
+	//throws the lexer's LexicalException once the tokens before it are used up
+
+	public void cancel()
+	//the parser does not want any more tokens, the lexer stops
+*/
+public class TokenRing implements TokenSink, TokenSource
+{
+	private static final int CAPACITY = 1 << 12;
+
+	private final ByteBuffer source;
+	private final int mask;
+	private final byte code[];
+	private final int start[];
+	private final int length[];
+	private final int line[];
+
+	//the number of tokens written and the number the parser is done with
+	private final AtomicInteger tail = new AtomicInteger();
+	private final AtomicInteger head = new AtomicInteger();
+	private volatile boolean closed;
+	private volatile boolean cancelled;
+	private volatile RuntimeException error;
+
+	//the lexer's side, written is tail and free how far it can go before
+	//it has to look at head again
+	private int written, free;
+	//the parser's side, the token it is on and how far it can go before
+	//it has to look at tail again
+	private int cur = -1, readable;
+
+	//capacity is rounded up to a power of 2
+	public TokenRing(ByteBuffer source, int capacity)
+	{
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.source = source;
+		mask = size - 1;
+		code = new byte[size];
+		start = new int[size];
+		length = new int[size];
+		line = new int[size];
+		free = size;
+	}
+
+	public static TokenRing lex(ByteBuffer input)
+	{
+		return lex(input, CAPACITY);
+	}
+
+	public static TokenRing lex(final ByteBuffer input, int capacity)
+	{
+		//the snippets are read through a buffer of their own, the lexer moves the input's position
+		final TokenRing ring = new TokenRing(input.duplicate(), capacity);
+		Thread lexer = new Thread("lexer") {
+			public void run() {
+				try
+				{
+					new Lexer(input, ring);
+					ring.close(null);
+				}
+				catch (CancellationException e)
+				{
+					//nobody is reading any more
+				}
+				catch (RuntimeException e)
+				{
+					ring.close(e);
+				}
+			}
+		};
+		lexer.setDaemon(true);
+		lexer.start();
+		return ring;
+	}
+
+	public void addToken(int code, int start, int length, int line)
+	{
+		if (written == free)
+		{
+			//full, or it looked full the last time
+			for (int spins = 0; written == (free = head.get() + mask + 1); spins++)
+			{
+				if (cancelled)
+					throw new CancellationException();
+				backOff(spins);
+			}
+		}
+		if ((written & mask) == 0 && cancelled)
+			throw new CancellationException();
+		int i = written & mask;
+		this.code[i] = (byte) code;
+		this.start[i] = start;
+		this.length[i] = length;
+		this.line[i] = line;
+		tail.lazySet(++written);
+	}
+
+	//no more tokens are coming, error is what stopped the lexer or null
+	public void close(RuntimeException error)
+	{
+		this.error = error;
+		closed = true;
+	}
+
+	public void cancel()
+	{
+		cancelled = true;
+	}
+
+	public boolean next()
+	{
+		//already past the last token, stays there like TokenBuffer's cursor
+		if (cur >= readable && closed)
+			return false;
+		int want = cur + 1;
+		if (want == readable)
+		{
+			for (int spins = 0; want == (readable = tail.get()); spins++)
+			{
+				if (closed)
+				{
+					//closed is set after the last token, so tail is final now
+					readable = tail.get();
+					if (want < readable)
+						break;
+					if (error != null)
+						throw error;
+					cur = want;
+					return false;
+				}
+				backOff(spins);
+			}
+		}
+		cur = want;
+		//the slots before the current one can be written again
+		head.lazySet(cur);
+		return true;
+	}
+
+	private static void backOff(int spins)
+	{
+		if (spins < 64)
+			Thread.onSpinWait();
+		else if (spins < 128)
+			Thread.yield();
+		else
+			LockSupport.parkNanos(10000);
+	}
+
+	public int tokenNo()
+	{
+		return cur;
+	}
+
+	public int code()
+	{
+		return code[cur & mask];
+	}
+
+	public String tokenClass()
+	{
+		return TokenKind.of(code()).tokenClass;
+	}
+
+	public int line()
+	{
+		return line[cur & mask];
+	}
+
+	public String snippet()
+	{
+		int at = start[cur & mask];
+		char chars[] = new char[length[cur & mask]];
+		for (int i = 0; i < chars.length; i++)
+			chars[i] = (char) (source.get(at + i) & 0xff);
+		return new String(chars);
+	}
+}
@@ -0,0 +1,15 @@
+package lexer;
+
+/*	Where the Lexer puts the tokens it finds, in order.
+
+	A TokenBuffer keeps them all, a TokenRing passes them on to a parser
+	on another thread.
+
+	public void addToken(int code, int start, int length, int line)
+	//the TokenKind code of the token, where it starts in the source, how
+		long it is and the line it is on
+*/
+public interface TokenSink
+{
+	public void addToken(int code, int start, int length, int line);
+}
@@ -0,0 +1,32 @@
+package lexer;
+
+/*	A pull based stream of tokens.
+
+	The Lexer hands one of these to the Parser so that tokens can be
+	consumed directly in memory instead of going through the
+	"lexeroutput" file.
+
+	public boolean next()
+	//moves on to the next token, returns false once there are no
+		tokens left
+
+	public int tokenNo()
+	public String tokenClass()
+	public String snippet()
+	//describe the token that next() last moved on to
+	
+	public int code()
+	//the TokenKind code of the token
+*/
+public interface TokenSource
+{
+	public boolean next();
+
+	public int tokenNo();
+
+	public String tokenClass();
+
+	public String snippet();
+
+	public int code();
+}
@@ -0,0 +1,734 @@
+package parser;
+
+import lexer.TokenKind;
+
+//Generated by AstGenerator from spl.grammar, do not edit.
+//See AstGenerator for what the classes have in them.
+public abstract class Ast
+{
+	public final int id;		//the ID of the node in the tree
+	public final int production;	//what made it, -1 for a token
+
+	Ast(int id, int production)
+	{
+		this.id = id;
+		this.production = production;
+	}
+
+	public abstract <R> R accept(Visitor<R> visitor);
+
+	//what a TreeNode would have
+	public String tokenClass()
+	{
+		return Context.lhsName(production);
+	}
+
+	public String snippet()
+	{
+		return "none";
+	}
+
+	public interface Visitor<R>
+	{
+		public R visit(Program node);
+		public R visit(Prog node);
+		public R visit(ProcDefs node);
+		public R visit(Proc node);
+		public R visit(Code node);
+		public R visit(Instr node);
+		public R visit(Io node);
+		public R visit(Call node);
+		public R visit(Var node);
+		public R visit(SVar node);
+		public R visit(NVar node);
+		public R visit(Assign node);
+		public R visit(Value node);
+		public R visit(NumExpr node);
+		public R visit(Calc node);
+		public R visit(CondBranch node);
+		public R visit(Bool node);
+		public R visit(CondLoop node);
+		public R visit(Target node);
+		public R visit(Token node);
+	}
+
+	//a name, an integer or a short string
+	public static final class Token extends Ast
+	{
+		public final int code;
+		public final int tokenNo;
+		public final String snippet;
+
+		Token(int id, int code, int tokenNo, String snippet)
+		{
+			super(id, -1);
+			this.code = code;
+			this.tokenNo = tokenNo;
+			this.snippet = snippet;
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+
+		public String tokenClass()
+		{
+			return TokenKind.of(code).tokenClass;
+		}
+
+		public String snippet()
+		{
+			return snippet;
+		}
+	}
+
+	public static final class Program extends Ast
+	{
+		public static final int PROGRAM = 1;	//Q -> P
+
+		public Prog prog;
+
+		Program(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class Prog extends Ast
+	{
+		public static final int CODE = 2;	//P -> C
+		public static final int WITH_PROCS = 3;	//P -> C ; D
+
+		public Code code;
+		public ProcDefs procDefs;
+
+		Prog(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class ProcDefs extends Ast
+	{
+		public static final int ONE = 4;	//D -> R
+		public static final int MORE = 5;	//D -> R D
+
+		public Proc proc;
+		public ProcDefs procDefs;
+
+		ProcDefs(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class Proc extends Ast
+	{
+		public static final int PROC = 6;	//R -> p u { P }
+
+		public Token name;
+		public Prog prog;
+
+		Proc(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class Code extends Ast
+	{
+		public static final int ONE = 7;	//C -> I
+		public static final int MORE = 8;	//C -> C ; I
+
+		public Instr instr;
+		public Code code;
+
+		Code(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class Instr extends Ast
+	{
+		public static final int HALT = 9;	//I -> h
+		public static final int IO = 10;	//I -> O
+		public static final int ASSIGN = 11;	//I -> A
+		public static final int COND_BRANCH = 12;	//I -> W
+		public static final int COND_LOOP = 13;	//I -> Z
+		public static final int CALL = 40;	//I -> Y
+
+		public Io io;
+		public Assign assign;
+		public CondBranch condBranch;
+		public CondLoop condLoop;
+		public Call call;
+
+		Instr(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class Io extends Ast
+	{
+		public static final int INPUT = 14;	//O -> i ( V )
+		public static final int OUTPUT = 39;	//O -> z ( V )
+
+		public Var var;
+
+		Io(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class Call extends Ast
+	{
+		public static final int CALL = 15;	//Y -> u
+
+		public Token name;
+
+		Call(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class Var extends Ast
+	{
+		public static final int SVAR = 16;	//V -> S
+		public static final int NVAR = 17;	//V -> N
+
+		public SVar sVar;
+		public NVar nVar;
+
+		Var(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class SVar extends Ast
+	{
+		public static final int SVAR = 18;	//S -> u
+
+		public Token name;
+
+		SVar(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class NVar extends Ast
+	{
+		public static final int NVAR = 19;	//N -> u
+
+		public Token name;
+
+		NVar(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class Assign extends Ast
+	{
+		public static final int ASSIGN = 20;	//A -> T = U
+
+		public Target target;
+		public Value value;
+
+		Assign(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class Value extends Ast
+	{
+		public static final int SVAR = 21;	//U -> S
+		public static final int STRING = 22;	//U -> s
+		public static final int NUMEXPR = 41;	//U -> X
+
+		public SVar sVar;
+		public Token shortString;
+		public NumExpr numExpr;
+
+		Value(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class NumExpr extends Ast
+	{
+		public static final int NVAR = 23;	//X -> N
+		public static final int INTEGER = 24;	//X -> b
+		public static final int CALC = 25;	//X -> L
+
+		public NVar nVar;
+		public Token integer;
+		public Calc calc;
+
+		NumExpr(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class Calc extends Ast
+	{
+		public static final int ADD = 26;	//L -> d ( X , X )
+		public static final int SUB = 27;	//L -> q ( X , X )
+		public static final int MULT = 28;	//L -> m ( X , X )
+
+		public NumExpr numExpr1;
+		public NumExpr numExpr2;
+
+		Calc(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class CondBranch extends Ast
+	{
+		public static final int IF = 29;	//W -> f ( B ) t { C }
+		public static final int IF_ELSE = 30;	//W -> f ( B ) t { C } l { C }
+
+		public Bool bool;
+		public Code code1;
+		public Code code2;
+
+		CondBranch(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class Bool extends Ast
+	{
+		public static final int EQ = 31;	//B -> e ( V , V )
+		public static final int LESS = 32;	//B -> ( N < N )
+		public static final int GREATER = 33;	//B -> ( N > N )
+		public static final int NOT = 34;	//B -> n B
+		public static final int AND = 35;	//B -> a ( B , B )
+		public static final int OR = 36;	//B -> o ( B , B )
+
+		public Var var1;
+		public Var var2;
+		public NVar nVar1;
+		public NVar nVar2;
+		public Bool bool1;
+		public Bool bool2;
+
+		Bool(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class CondLoop extends Ast
+	{
+		public static final int WHILE = 37;	//Z -> w ( B ) { C }
+		public static final int FOR = 38;	//Z -> r ( N = b ; N < b ; N = d ( N , b ) ) { C }
+
+		public Bool bool;
+		public Code code;
+		public NVar nVar1;
+		public Token integer1;
+		public NVar nVar2;
+		public Token integer2;
+		public NVar nVar3;
+		public NVar nVar4;
+		public Token integer3;
+
+		CondLoop(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	public static final class Target extends Ast
+	{
+		public static final int SVAR = 42;	//T -> S
+		public static final int NVAR = 43;	//T -> N
+
+		public SVar sVar;
+		public NVar nVar;
+
+		Target(int id, int production)
+		{
+			super(id, production);
+		}
+
+		public <R> R accept(Visitor<R> visitor)
+		{
+			return visitor.visit(this);
+		}
+	}
+
+	//the nodes of the subtree at root, it is walked in the order of the
+	//tree and not recursively, so a long program does not need a deep stack
+	public static Ast build(Tree tree, int root)
+	{
+		int first = root;
+		while (tree.firstChild(first) != Tree.NONE)
+			first = tree.firstChild(first);
+		Ast made [] = new Ast[root - first + 1];
+		Ast children [] = new Ast[16];
+		for (int node = first; node <= root; node++) {
+			if (tree.isToken(node)) {
+				int code = tree.code(node);
+				if (TokenKind.of(code).text == null)
+					made[node - first] = new Token(tree.id(node), code, tree.tokenNo(node), tree.snippet(node));
+				continue;
+			}
+			int count = 0;
+			for (int child = tree.firstChild(node); child != Tree.NONE; child = tree.nextSibling(child))
+				if (made[child - first] != null)
+					children[count++] = made[child - first];
+			made[node - first] = make(tree.production(node), tree.id(node), children);
+		}
+		return made[root - first];
+	}
+
+	//a node of the production, its children are the ones that have a field
+	private static Ast make(int production, int id, Ast children [])
+	{
+		switch (production) {
+			case Program.PROGRAM: {
+				Program node = new Program(id, Program.PROGRAM);
+				node.prog = (Prog) children[0];
+				return node;
+			}
+			case Prog.CODE: {
+				Prog node = new Prog(id, Prog.CODE);
+				node.code = (Code) children[0];
+				return node;
+			}
+			case Prog.WITH_PROCS: {
+				Prog node = new Prog(id, Prog.WITH_PROCS);
+				node.code = (Code) children[0];
+				node.procDefs = (ProcDefs) children[1];
+				return node;
+			}
+			case ProcDefs.ONE: {
+				ProcDefs node = new ProcDefs(id, ProcDefs.ONE);
+				node.proc = (Proc) children[0];
+				return node;
+			}
+			case ProcDefs.MORE: {
+				ProcDefs node = new ProcDefs(id, ProcDefs.MORE);
+				node.proc = (Proc) children[0];
+				node.procDefs = (ProcDefs) children[1];
+				return node;
+			}
+			case Proc.PROC: {
+				Proc node = new Proc(id, Proc.PROC);
+				node.name = (Token) children[0];
+				node.prog = (Prog) children[1];
+				return node;
+			}
+			case Code.ONE: {
+				Code node = new Code(id, Code.ONE);
+				node.instr = (Instr) children[0];
+				return node;
+			}
+			case Code.MORE: {
+				Code node = new Code(id, Code.MORE);
+				node.code = (Code) children[0];
+				node.instr = (Instr) children[1];
+				return node;
+			}
+			case Instr.HALT: {
+				Instr node = new Instr(id, Instr.HALT);
+				return node;
+			}
+			case Instr.IO: {
+				Instr node = new Instr(id, Instr.IO);
+				node.io = (Io) children[0];
+				return node;
+			}
+			case Instr.ASSIGN: {
+				Instr node = new Instr(id, Instr.ASSIGN);
+				node.assign = (Assign) children[0];
+				return node;
+			}
+			case Instr.COND_BRANCH: {
+				Instr node = new Instr(id, Instr.COND_BRANCH);
+				node.condBranch = (CondBranch) children[0];
+				return node;
+			}
+			case Instr.COND_LOOP: {
+				Instr node = new Instr(id, Instr.COND_LOOP);
+				node.condLoop = (CondLoop) children[0];
+				return node;
+			}
+			case Io.INPUT: {
+				Io node = new Io(id, Io.INPUT);
+				node.var = (Var) children[0];
+				return node;
+			}
+			case Call.CALL: {
+				Call node = new Call(id, Call.CALL);
+				node.name = (Token) children[0];
+				return node;
+			}
+			case Var.SVAR: {
+				Var node = new Var(id, Var.SVAR);
+				node.sVar = (SVar) children[0];
+				return node;
+			}
+			case Var.NVAR: {
+				Var node = new Var(id, Var.NVAR);
+				node.nVar = (NVar) children[0];
+				return node;
+			}
+			case SVar.SVAR: {
+				SVar node = new SVar(id, SVar.SVAR);
+				node.name = (Token) children[0];
+				return node;
+			}
+			case NVar.NVAR: {
+				NVar node = new NVar(id, NVar.NVAR);
+				node.name = (Token) children[0];
+				return node;
+			}
+			case Assign.ASSIGN: {
+				Assign node = new Assign(id, Assign.ASSIGN);
+				node.target = (Target) children[0];
+				node.value = (Value) children[1];
+				return node;
+			}
+			case Value.SVAR: {
+				Value node = new Value(id, Value.SVAR);
+				node.sVar = (SVar) children[0];
+				return node;
+			}
+			case Value.STRING: {
+				Value node = new Value(id, Value.STRING);
+				node.shortString = (Token) children[0];
+				return node;
+			}
+			case NumExpr.NVAR: {
+				NumExpr node = new NumExpr(id, NumExpr.NVAR);
+				node.nVar = (NVar) children[0];
+				return node;
+			}
+			case NumExpr.INTEGER: {
+				NumExpr node = new NumExpr(id, NumExpr.INTEGER);
+				node.integer = (Token) children[0];
+				return node;
+			}
+			case NumExpr.CALC: {
+				NumExpr node = new NumExpr(id, NumExpr.CALC);
+				node.calc = (Calc) children[0];
+				return node;
+			}
+			case Calc.ADD: {
+				Calc node = new Calc(id, Calc.ADD);
+				node.numExpr1 = (NumExpr) children[0];
+				node.numExpr2 = (NumExpr) children[1];
+				return node;
+			}
+			case Calc.SUB: {
+				Calc node = new Calc(id, Calc.SUB);
+				node.numExpr1 = (NumExpr) children[0];
+				node.numExpr2 = (NumExpr) children[1];
+				return node;
+			}
+			case Calc.MULT: {
+				Calc node = new Calc(id, Calc.MULT);
+				node.numExpr1 = (NumExpr) children[0];
+				node.numExpr2 = (NumExpr) children[1];
+				return node;
+			}
+			case CondBranch.IF: {
+				CondBranch node = new CondBranch(id, CondBranch.IF);
+				node.bool = (Bool) children[0];
+				node.code1 = (Code) children[1];
+				return node;
+			}
+			case CondBranch.IF_ELSE: {
+				CondBranch node = new CondBranch(id, CondBranch.IF_ELSE);
+				node.bool = (Bool) children[0];
+				node.code1 = (Code) children[1];
+				node.code2 = (Code) children[2];
+				return node;
+			}
+			case Bool.EQ: {
+				Bool node = new Bool(id, Bool.EQ);
+				node.var1 = (Var) children[0];
+				node.var2 = (Var) children[1];
+				return node;
+			}
+			case Bool.LESS: {
+				Bool node = new Bool(id, Bool.LESS);
+				node.nVar1 = (NVar) children[0];
+				node.nVar2 = (NVar) children[1];
+				return node;
+			}
+			case Bool.GREATER: {
+				Bool node = new Bool(id, Bool.GREATER);
+				node.nVar1 = (NVar) children[0];
+				node.nVar2 = (NVar) children[1];
+				return node;
+			}
+			case Bool.NOT: {
+				Bool node = new Bool(id, Bool.NOT);
+				node.bool1 = (Bool) children[0];
+				return node;
+			}
+			case Bool.AND: {
+				Bool node = new Bool(id, Bool.AND);
+				node.bool1 = (Bool) children[0];
+				node.bool2 = (Bool) children[1];
+				return node;
+			}
+			case Bool.OR: {
+				Bool node = new Bool(id, Bool.OR);
+				node.bool1 = (Bool) children[0];
+				node.bool2 = (Bool) children[1];
+				return node;
+			}
+			case CondLoop.WHILE: {
+				CondLoop node = new CondLoop(id, CondLoop.WHILE);
+				node.bool = (Bool) children[0];
+				node.code = (Code) children[1];
+				return node;
+			}
+			case CondLoop.FOR: {
+				CondLoop node = new CondLoop(id, CondLoop.FOR);
+				node.nVar1 = (NVar) children[0];
+				node.integer1 = (Token) children[1];
+				node.nVar2 = (NVar) children[2];
+				node.integer2 = (Token) children[3];
+				node.nVar3 = (NVar) children[4];
+				node.nVar4 = (NVar) children[5];
+				node.integer3 = (Token) children[6];
+				node.code = (Code) children[7];
+				return node;
+			}
+			case Io.OUTPUT: {
+				Io node = new Io(id, Io.OUTPUT);
+				node.var = (Var) children[0];
+				return node;
+			}
+			case Instr.CALL: {
+				Instr node = new Instr(id, Instr.CALL);
+				node.call = (Call) children[0];
+				return node;
+			}
+			case Value.NUMEXPR: {
+				Value node = new Value(id, Value.NUMEXPR);
+				node.numExpr = (NumExpr) children[0];
+				return node;
+			}
+			case Target.SVAR: {
+				Target node = new Target(id, Target.SVAR);
+				node.sVar = (SVar) children[0];
+				return node;
+			}
+			case Target.NVAR: {
+				Target node = new Target(id, Target.NVAR);
+				node.nVar = (NVar) children[0];
+				return node;
+			}
+		}
+		throw new IllegalArgumentException("No node class for production " + production);
+	}
+}
@@ -0,0 +1,244 @@
+package parser;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import lexer.TokenKind;
+
+/*	A parse tree saved in a binary file, so the later phases can read it
+	back instead of lexing and parsing the source again.
+
+	The file is memory mapped and the nodes are read straight out of it,
+	nothing is turned into objects except a snippet that is asked for.
+
+	All numbers are 4 byte big endian ints:
+
+		MAGIC, VERSION
+		number of nodes, the root node
+		number of strings, number of bytes in the string pool
+		where every string starts in the pool, and where the pool ends
+		the string pool (one byte per character), padded to 4 bytes
+		id[], kind[], token[], text[], firstChild[], nextSibling[], parent[]
+		(one int per node each, see TreeStore)
+
+	public static void write(Tree tree, int root, String fileName)
+	//saves the tree under root, the nodes are numbered from 0 in the file
+
+	public AstFile(String fileName)
+	//maps a saved tree, IOException if it is not one
+
+	public int root()
+	//the root node
+*/
+public class AstFile implements Tree
+{
+	public static final int MAGIC = 0x5350_4c54;	//"SPLT"
+	public static final int VERSION = 1;
+
+	private static final int ID = 0, KIND = 1, TOKEN = 2, TEXT = 3, FIRST_CHILD = 4, NEXT_SIBLING = 5, PARENT = 6;
+	private static final int ARRAYS = 7;
+
+	private ByteBuffer data;
+	private int count;
+	private int root;
+	private int strings;
+	private int offsets;	//where the string offsets start
+	private int pool;	//where the string pool starts
+	private int nodes;	//where the node arrays start
+
+	public static void write(Tree tree, int root, String fileName) throws IOException
+	{
+		//the subtree under root is the nodes from its first leaf up to root
+		int first = root;
+		while (tree.firstChild(first) != NONE)
+			first = tree.firstChild(first);
+		int count = root - first + 1;
+
+		ArrayList<String> pool = new ArrayList<String>();
+		HashMap<String, Integer> index = new HashMap<String, Integer>();
+		int text[] = new int[count];
+		int poolBytes = 0;
+		for (int i = 0; i < count; i++)
+		{
+			text[i] = NONE;
+			int code = tree.code(first + i);
+			if (code >= 0 && TokenKind.of(code).text == null)
+			{
+				String snippet = tree.snippet(first + i);
+				Integer at = index.get(snippet);
+				if (at == null)
+				{
+					at = pool.size();
+					pool.add(snippet);
+					index.put(snippet, at);
+					poolBytes += snippet.length();
+				}
+				text[i] = at;
+			}
+		}
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+		try
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(count);
+			out.writeInt(count - 1);
+			out.writeInt(pool.size());
+			out.writeInt(poolBytes);
+			int at = 0;
+			for (String s : pool)
+			{
+				out.writeInt(at);
+				at += s.length();
+			}
+			out.writeInt(at);
+			for (String s : pool)
+				out.writeBytes(s);
+			for (int i = poolBytes; i % 4 != 0; i++)
+				out.writeByte(0);
+
+			for (int i = 0; i < count; i++)
+				out.writeInt(tree.id(first + i));
+			for (int i = 0; i < count; i++)
+			{
+				int n = first + i;
+				out.writeInt(tree.isToken(n) ? tree.code(n) : ~tree.production(n));
+			}
+			for (int i = 0; i < count; i++)
+				out.writeInt(tree.tokenNo(first + i));
+			for (int i = 0; i < count; i++)
+				out.writeInt(text[i]);
+			for (int i = 0; i < count; i++)
+				out.writeInt(local(tree.firstChild(first + i), first));
+			for (int i = 0; i < count; i++)
+				out.writeInt(first + i == root ? NONE : local(tree.nextSibling(first + i), first));
+			for (int i = 0; i < count; i++)
+				out.writeInt(first + i == root ? NONE : local(tree.parent(first + i), first));
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	private static int local(int node, int first)
+	{
+		return node == NONE ? NONE : node - first;
+	}
+
+	public AstFile(String fileName) throws IOException
+	{
+		FileInputStream in = new FileInputStream(fileName);
+		try
+		{
+			FileChannel channel = in.getChannel();
+			data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally
+		{
+			in.close();
+		}
+
+		if (data.capacity() < 24 || data.getInt(0) != MAGIC)
+			throw new IOException(fileName + " is not a saved parse tree");
+		if (data.getInt(4) != VERSION)
+			throw new IOException(fileName + " is version " + data.getInt(4) + ", only version " + VERSION + " can be read");
+		count = data.getInt(8);
+		root = data.getInt(12);
+		strings = data.getInt(16);
+		int poolBytes = data.getInt(20);
+		if (count < 0 || root < 0 || root >= count || strings < 0 || poolBytes < 0)
+			throw new IOException(fileName + " has a broken header");
+		//worked out in longs, so sizes from a broken file cannot wrap around
+		long end = 24 + 4L * (strings + 1L) + (poolBytes + 3L) / 4 * 4;
+		if (data.capacity() < end + 4L * ARRAYS * count)
+			throw new IOException(fileName + " is cut short");
+		offsets = 24;
+		pool = offsets + 4 * (strings + 1);
+		nodes = pool + (poolBytes + 3) / 4 * 4;
+	}
+
+	private int get(int array, int node)
+	{
+		return data.getInt(nodes + 4 * (array * count + node));
+	}
+
+	public int root()
+	{
+		return root;
+	}
+
+	public int size()
+	{
+		return count;
+	}
+
+	public int id(int node)
+	{
+		return get(ID, node);
+	}
+
+	public boolean isToken(int node)
+	{
+		return get(KIND, node) >= 0;
+	}
+
+	public int code(int node)
+	{
+		int kind = get(KIND, node);
+		return kind >= 0 ? kind : -1;
+	}
+
+	public int production(int node)
+	{
+		int kind = get(KIND, node);
+		return kind < 0 ? ~kind : -1;
+	}
+
+	public int tokenNo(int node)
+	{
+		return get(TOKEN, node);
+	}
+
+	public String tokenClass(int node)
+	{
+		int kind = get(KIND, node);
+		if (kind < 0)
+			return Context.lhsName(~kind);
+		return TokenKind.of(kind).tokenClass;
+	}
+
+	public String snippet(int node)
+	{
+		int kind = get(KIND, node);
+		if (kind < 0)
+			return "none";
+		int text = get(TEXT, node);
+		if (text == NONE)
+			return TokenKind.of(kind).text;
+
+		int from = data.getInt(offsets + 4 * text);
+		int to = data.getInt(offsets + 4 * (text + 1));
+		char chars[] = new char[to - from];
+		for (int i = 0; i < chars.length; i++)
+			chars[i] = (char) (data.get(pool + from + i) & 0xff);
+		return new String(chars);
+	}
+
+	public int firstChild(int node)
+	{
+		return get(FIRST_CHILD, node);
+	}
+
+	public int nextSibling(int node)
+	{
+		return get(NEXT_SIBLING, node);
+	}
+
+	public int parent(int node)
+	{
+		return get(PARENT, node);
+	}
+}
@@ -0,0 +1,252 @@
+package parser;
+
+import java.io.*;
+import java.util.*;
+import lexer.TokenKind;
+
+/*	Build step: makes a class for the nodes of every nonterminal of a
+	grammar file, and a visitor for them, and writes them to Ast.java.
+
+		java parser.AstGenerator spl.grammar Ast.java
+
+	Every nonterminal needs a %node line that names its class. A class
+	has a field for every nonterminal and every token with a snippet of
+	its own (names, integers and short strings) on the right hand side of
+	its productions, named after what is in it. A symbol that is there
+	more than once in one production gets a field for each, numbered from
+	1. Keywords and grouping symbols get no field, the production number
+	of the node says which ones it had. A field the node's production
+	does not have is null.
+
+	Every production needs a %name too, which becomes a constant of its
+	class with the production's number. Code that tells the productions
+	of a class apart compares node.production with those, so it does
+	not depend on how the grammar is numbered.
+
+	The visitor has a visit for every class and no default, so a class
+	added to the grammar is a compile error in every visitor until it
+	handles it. Ast.build makes the nodes from a Tree, full or pruned.
+*/
+public class AstGenerator
+{
+	private Grammar grammar;
+
+	//the nonterminals in the order the grammar first has them on the left
+	private ArrayList<Character> classes = new ArrayList<Character>();
+	//every class's fields, symbol and name, in the order they first come
+	private HashMap<Character, LinkedHashMap<String, Character>> fields = new HashMap<Character, LinkedHashMap<String, Character>>();
+	//for every production the field of each of its symbols, null if it has none
+	private String [][] fieldOf;
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 2) {
+			System.out.println("usage: java parser.AstGenerator spl.grammar Ast.java");
+			return;
+		}
+		AstGenerator generator = new AstGenerator(new Grammar(args[0]));
+		generator.write(args[1], args[0]);
+		System.out.println(generator.classes.size() + " node classes written to '" + args[1] + "'");
+	}
+
+	public AstGenerator(Grammar grammar) throws IOException
+	{
+		this.grammar = grammar;
+		fieldOf = new String[grammar.size()][];
+		for (int p = 1; p < grammar.size(); p++) {
+			char left = grammar.lhs(p);
+			if (!fields.containsKey(left)) {
+				if (grammar.nodeName(left) == null)
+					throw new IOException(left + " has no %node name");
+				classes.add(left);
+				fields.put(left, new LinkedHashMap<String, Character>());
+			}
+			String name = grammar.productionName(p);
+			if (name == null)
+				throw new IOException("production " + p + " has no %name");
+			for (int q = 1; q < p; q++)
+				if (grammar.lhs(q) == left && name.equals(grammar.productionName(q)))
+					throw new IOException("productions " + q + " and " + p + " of " + left + " are both " + name);
+		}
+
+		for (int p = 1; p < grammar.size(); p++) {
+			char [] right = grammar.rhs(p);
+			fieldOf[p] = new String[right.length];
+			for (int i = 0; i < right.length; i++) {
+				if (!hasField(right[i]))
+					continue;
+				int count = 0, number = 0;
+				for (int j = 0; j < right.length; j++)
+					if (right[j] == right[i]) {
+						count++;
+						if (j <= i)
+							number++;
+					}
+				fieldOf[p][i] = fieldName(right[i]) + (count > 1 ? Integer.toString(number) : "");
+			}
+		}
+
+		//a symbol that is numbered in one production of a nonterminal is numbered in all of them
+		for (int p = 1; p < grammar.size(); p++)
+			for (int i = 0; i < fieldOf[p].length; i++) {
+				String name = fieldOf[p][i];
+				if (name != null && !Character.isDigit(name.charAt(name.length() - 1)) && isNumbered(grammar.lhs(p), grammar.rhs(p)[i]))
+					fieldOf[p][i] = name + "1";
+			}
+
+		for (int p = 1; p < grammar.size(); p++)
+			for (int i = 0; i < fieldOf[p].length; i++)
+				if (fieldOf[p][i] != null)
+					fields.get(grammar.lhs(p)).put(fieldOf[p][i], grammar.rhs(p)[i]);
+	}
+
+	private boolean isNumbered(char left, char symbol)
+	{
+		for (int p = 1; p < grammar.size(); p++)
+			for (String name : fieldOf[p])
+				if (grammar.lhs(p) == left && name != null && name.equals(fieldName(symbol) + "1"))
+					return true;
+		return false;
+	}
+
+	//nonterminals and the tokens whose snippet is not always the same
+	private boolean hasField(char symbol)
+	{
+		if (grammar.isNonterminal(symbol))
+			return true;
+		TokenKind kind = kindOf(symbol);
+		return kind != null && kind.text == null;
+	}
+
+	private static TokenKind kindOf(char terminal)
+	{
+		for (TokenKind kind : TokenKind.values())
+			if (kind.terminal == terminal)
+				return kind;
+		return null;
+	}
+
+	//nodeName with a small first letter, or the token kind in camel case
+	private String fieldName(char symbol)
+	{
+		String name = grammar.isNonterminal(symbol) ? grammar.nodeName(symbol) : kindOf(symbol).name();
+		if (!grammar.isNonterminal(symbol)) {
+			StringBuilder camel = new StringBuilder();
+			for (String word : name.toLowerCase().split("_"))
+				camel.append(camel.length() == 0 ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1));
+			return camel.toString();
+		}
+		return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+	}
+
+	private String typeName(char symbol)
+	{
+		return grammar.isNonterminal(symbol) ? grammar.nodeName(symbol) : "Token";
+	}
+
+	//the production as it is written in the grammar file
+	private String production(int p)
+	{
+		StringBuilder out = new StringBuilder();
+		out.append(grammar.lhs(p)).append(" ->");
+		for (char x : grammar.rhs(p))
+			out.append(' ').append(x);
+		return out.toString();
+	}
+
+	public void write(String fileName, String grammarName) throws IOException
+	{
+		StringBuilder out = new StringBuilder();
+		out.append("package parser;\n\n");
+		out.append("import lexer.TokenKind;\n\n");
+		out.append("//Generated by AstGenerator from ").append(grammarName).append(", do not edit.\n");
+		out.append("//See AstGenerator for what the classes have in them.\n");
+		out.append("public abstract class Ast\n{\n");
+		out.append("\tpublic final int id;\t\t//the ID of the node in the tree\n");
+		out.append("\tpublic final int production;\t//what made it, -1 for a token\n\n");
+		out.append("\tAst(int id, int production)\n\t{\n");
+		out.append("\t\tthis.id = id;\n\t\tthis.production = production;\n\t}\n\n");
+		out.append("\tpublic abstract <R> R accept(Visitor<R> visitor);\n\n");
+		out.append("\t//what a TreeNode would have\n");
+		out.append("\tpublic String tokenClass()\n\t{\n\t\treturn Context.lhsName(production);\n\t}\n\n");
+		out.append("\tpublic String snippet()\n\t{\n\t\treturn \"none\";\n\t}\n\n");
+
+		out.append("\tpublic interface Visitor<R>\n\t{\n");
+		for (char c : classes)
+			out.append("\t\tpublic R visit(").append(grammar.nodeName(c)).append(" node);\n");
+		out.append("\t\tpublic R visit(Token node);\n\t}\n\n");
+
+		out.append("\t//a name, an integer or a short string\n");
+		out.append("\tpublic static final class Token extends Ast\n\t{\n");
+		out.append("\t\tpublic final int code;\n\t\tpublic final int tokenNo;\n\t\tpublic final String snippet;\n\n");
+		out.append("\t\tToken(int id, int code, int tokenNo, String snippet)\n\t\t{\n");
+		out.append("\t\t\tsuper(id, -1);\n\t\t\tthis.code = code;\n\t\t\tthis.tokenNo = tokenNo;\n\t\t\tthis.snippet = snippet;\n\t\t}\n\n");
+		out.append("\t\tpublic <R> R accept(Visitor<R> visitor)\n\t\t{\n\t\t\treturn visitor.visit(this);\n\t\t}\n\n");
+		out.append("\t\tpublic String tokenClass()\n\t\t{\n\t\t\treturn TokenKind.of(code).tokenClass;\n\t\t}\n\n");
+		out.append("\t\tpublic String snippet()\n\t\t{\n\t\t\treturn snippet;\n\t\t}\n\t}\n");
+
+		for (char c : classes) {
+			String name = grammar.nodeName(c);
+			out.append('\n');
+			out.append("\tpublic static final class ").append(name).append(" extends Ast\n\t{\n");
+			for (int p = 1; p < grammar.size(); p++)
+				if (grammar.lhs(p) == c)
+					out.append("\t\tpublic static final int ").append(grammar.productionName(p)).append(" = ").append(p)
+						.append(";\t//").append(production(p)).append('\n');
+			out.append('\n');
+			for (Map.Entry<String, Character> field : fields.get(c).entrySet())
+				out.append("\t\tpublic ").append(typeName(field.getValue())).append(' ').append(field.getKey()).append(";\n");
+			if (!fields.get(c).isEmpty())
+				out.append('\n');
+			out.append("\t\t").append(name).append("(int id, int production)\n\t\t{\n");
+			out.append("\t\t\tsuper(id, production);\n\t\t}\n\n");
+			out.append("\t\tpublic <R> R accept(Visitor<R> visitor)\n\t\t{\n\t\t\treturn visitor.visit(this);\n\t\t}\n\t}\n");
+		}
+
+		out.append("\n\t//the nodes of the subtree at root, it is walked in the order of the\n");
+		out.append("\t//tree and not recursively, so a long program does not need a deep stack\n");
+		out.append("\tpublic static Ast build(Tree tree, int root)\n\t{\n");
+		out.append("\t\tint first = root;\n");
+		out.append("\t\twhile (tree.firstChild(first) != Tree.NONE)\n\t\t\tfirst = tree.firstChild(first);\n");
+		out.append("\t\tAst made [] = new Ast[root - first + 1];\n");
+		out.append("\t\tAst children [] = new Ast[16];\n");
+		out.append("\t\tfor (int node = first; node <= root; node++) {\n");
+		out.append("\t\t\tif (tree.isToken(node)) {\n");
+		out.append("\t\t\t\tint code = tree.code(node);\n");
+		out.append("\t\t\t\tif (TokenKind.of(code).text == null)\n");
+		out.append("\t\t\t\t\tmade[node - first] = new Token(tree.id(node), code, tree.tokenNo(node), tree.snippet(node));\n");
+		out.append("\t\t\t\tcontinue;\n\t\t\t}\n");
+		out.append("\t\t\tint count = 0;\n");
+		out.append("\t\t\tfor (int child = tree.firstChild(node); child != Tree.NONE; child = tree.nextSibling(child))\n");
+		out.append("\t\t\t\tif (made[child - first] != null)\n");
+		out.append("\t\t\t\t\tchildren[count++] = made[child - first];\n");
+		out.append("\t\t\tmade[node - first] = make(tree.production(node), tree.id(node), children);\n");
+		out.append("\t\t}\n");
+		out.append("\t\treturn made[root - first];\n\t}\n\n");
+
+		out.append("\t//a node of the production, its children are the ones that have a field\n");
+		out.append("\tprivate static Ast make(int production, int id, Ast children [])\n\t{\n");
+		out.append("\t\tswitch (production) {\n");
+		for (int p = 1; p < grammar.size(); p++) {
+			String name = grammar.nodeName(grammar.lhs(p));
+			String constant = name + "." + grammar.productionName(p);
+			out.append("\t\t\tcase ").append(constant).append(": {\n");
+			out.append("\t\t\t\t").append(name).append(" node = new ").append(name).append("(id, ").append(constant).append(");\n");
+			int k = 0;
+			for (int i = 0; i < fieldOf[p].length; i++)
+				if (fieldOf[p][i] != null) {
+					char symbol = grammar.rhs(p)[i];
+					out.append("\t\t\t\tnode.").append(fieldOf[p][i]).append(" = (").append(typeName(symbol))
+						.append(") children[").append(k++).append("];\n");
+				}
+			out.append("\t\t\t\treturn node;\n\t\t\t}\n");
+		}
+		out.append("\t\t}\n");
+		out.append("\t\tthrow new IllegalArgumentException(\"No node class for production \" + production);\n");
+		out.append("\t}\n}\n");
+
+		Writer file = new FileWriter(fileName);
+		file.write(out.toString());
+		file.close();
+	}
+}
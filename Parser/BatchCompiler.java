@@ -0,0 +1,289 @@
+package parser;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import lexer.*;
+
+/*	Compiles many files at once, one task per file on a work stealing
+	pool with a thread per core.
+
+		java parser.BatchCompiler [-tree] [-pruned] [-ast] [-pipe] [-split] [-threads N] FILE|DIR ...
+		//a directory stands for every .spl file under it. -tree, -pruned
+			and -ast save FILE.ParseTree, FILE.PrunedParseTree and FILE.ast
+			next to each file instead of in one shared file. -pipe lexes
+			and parses every file at the same time on two threads, -split
+			parses a big file in pieces on all cores
+
+	A file has nothing in common with the others but the parse table,
+	which never changes, so the tasks do not wait for each other. Nothing
+	is printed while they run, every file gives back a Result and the
+	results are printed in the order the files were given.
+
+	public BatchCompiler addPhase(Phase phase)
+	//runs after the file parsed, for the checks that come after parsing.
+		A phase runs on many files at once and gets a Parser of its own for
+		each, the TypeChecker's is TypeChecker.PHASE
+
+	public static void run(BatchCompiler compiler, String command, String[] args)
+	//what main does with the compiler it is given, command is for the usage line
+
+	public List<Result> compile(List<String> files)
+	//compiles the files, the results are in the same order
+*/
+public class BatchCompiler
+{
+	//a check on a parsed file, the error message or null if it passed
+	public static interface Phase
+	{
+		public String run(String file, Parser parser);
+	}
+
+	public static class Result
+	{
+		public final String file;
+		public final String error;	//null if the file passed
+		public final int tokens;
+		public final int nodes;
+		public final long nanos;
+
+		Result(String file, String error, int tokens, int nodes, long nanos)
+		{
+			this.file = file;
+			this.error = error;
+			this.tokens = tokens;
+			this.nodes = nodes;
+			this.nanos = nanos;
+		}
+
+		public boolean passed()
+		{
+			return error == null;
+		}
+
+		public String toString()
+		{
+			return file + ": " + (error == null ? "ok, " + tokens + " tokens, " + nodes + " nodes" : error);
+		}
+	}
+
+	private boolean tree, pruned, ast, pipe, split;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private ArrayList<Phase> phases = new ArrayList<Phase>();
+
+	public BatchCompiler writeTrees(boolean tree, boolean pruned, boolean ast)
+	{
+		this.tree = tree;
+		this.pruned = pruned;
+		this.ast = ast;
+		return this;
+	}
+
+	//lexes every file on a thread of its own while it is parsed, see TokenRing
+	public BatchCompiler setPipelined(boolean pipe)
+	{
+		this.pipe = pipe;
+		return this;
+	}
+
+	//parses every file in pieces on all cores, see ParallelParser
+	public BatchCompiler setSplit(boolean split)
+	{
+		this.split = split;
+		return this;
+	}
+
+	public BatchCompiler setThreads(int threads)
+	{
+		this.threads = threads;
+		return this;
+	}
+
+	public BatchCompiler addPhase(Phase phase)
+	{
+		phases.add(phase);
+		return this;
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		run(new BatchCompiler(), "parser.BatchCompiler", args);
+	}
+
+	//the options and files of the command line, for a main that adds phases
+	//to the compiler first (see BatchCheck in the type checker)
+	public static void run(BatchCompiler compiler, String command, String[] args) throws Exception
+	{
+		boolean tree = false, pruned = false, ast = false;
+		ArrayList<String> files = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equals("-tree"))
+				tree = true;
+			else if (args[i].equals("-pruned"))
+				pruned = true;
+			else if (args[i].equals("-ast"))
+				ast = true;
+			else if (args[i].equals("-split"))
+				compiler.setSplit(true);
+			else if (args[i].equals("-pipe"))
+				compiler.setPipelined(true);
+			else if (args[i].equals("-threads") && i + 1 < args.length)
+				compiler.setThreads(Integer.parseInt(args[++i]));
+			else
+				addFiles(new File(args[i]), files);
+		}
+		if (files.isEmpty())
+		{
+			System.out.println("usage: java " + command + " [-tree] [-pruned] [-ast] [-pipe] [-split] [-threads N] FILE|DIR ...");
+			return;
+		}
+		compiler.writeTrees(tree, pruned, ast);
+
+		long start = System.nanoTime();
+		int failed = 0;
+		for (Result result : compiler.compile(files))
+		{
+			System.out.println(result);
+			if (!result.passed())
+				failed++;
+		}
+		System.out.println(files.size() + " files, " + failed + " failed, "
+			+ (System.nanoTime() - start) / 1000000 + " ms");
+		if (failed > 0)
+			System.exit(1);
+	}
+
+	//a directory adds its .spl files, in name order
+	private static void addFiles(File file, List<String> files)
+	{
+		if (!file.isDirectory())
+		{
+			files.add(file.getPath());
+			return;
+		}
+		File list[] = file.listFiles();
+		Arrays.sort(list);
+		for (File f : list)
+			if (f.isDirectory() || f.getName().endsWith(".spl"))
+				addFiles(f, files);
+	}
+
+	public List<Result> compile(List<String> files) throws InterruptedException
+	{
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try
+		{
+			ArrayList<ForkJoinTask<Result>> tasks = new ArrayList<ForkJoinTask<Result>>();
+			for (final String file : files)
+				tasks.add(pool.submit(new Callable<Result>() {
+					public Result call() {
+						//a phase that breaks only fails its own file
+						try
+						{
+							return compile(file);
+						}
+						catch (RuntimeException e)
+						{
+							return new Result(file, e.toString(), 0, 0, 0);
+						}
+					}
+				}));
+			ArrayList<Result> results = new ArrayList<Result>();
+			for (ForkJoinTask<Result> task : tasks)
+				results.add(task.join());
+			return results;
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	//lexes, parses and checks one file, everything it needs is its own
+	public Result compile(String file)
+	{
+		long start = System.nanoTime();
+		TokenSource tokens;
+		TokenBuffer buffer = null;
+		TokenRing ring = null;
+		Parser parser;
+		String error;
+		try
+		{
+			ByteBuffer input = read(file);
+			//the lexer runs ahead on a thread of its own, or is done before parsing starts
+			if (pipe)
+				tokens = ring = TokenRing.lex(input);
+			else
+				tokens = (buffer = new Lexer(input, 1).getTokenBuffer()).source();
+			parser = new Parser(tokens);
+			parser.setQuiet(true);
+			//the pruned tree can be built straight away when it is the only one
+			//wanted, FILE.ast is made from the full tree like FILE.ParseTree
+			parser.setPruned(pruned && !tree && !ast);
+			boolean passed = split && buffer != null ? ParallelParser.parse(parser, buffer) : parser.parse();
+			error = passed ? null : parser.getError();
+		}
+		catch (IOException e)
+		{
+			return new Result(file, "Error reading file: " + file, 0, 0, System.nanoTime() - start);
+		}
+		catch (LexicalException e)
+		{
+			return new Result(file, "line " + e.line + ": " + e.getMessage(), 0, 0, System.nanoTime() - start);
+		}
+		finally
+		{
+			if (ring != null)
+				ring.cancel();
+		}
+		for (int i = 0; error == null && i < phases.size(); i++)
+			error = phases.get(i).run(file, parser);
+
+		if (error == null)
+		{
+			try
+			{
+				if (tree)
+					TreeWriter.write(parser.getTree(), parser.getRootNode(), file + ".ParseTree");
+				if (ast)
+					AstFile.write(parser.getTree(), parser.getRootNode(), file + ".ast");
+				if (pruned)
+				{
+					if (tree || ast)
+					{
+						parser.prune();
+						TreeWriter.write(parser.getRoot(), file + ".PrunedParseTree");
+					}
+					else
+						TreeWriter.write(parser.getTree(), parser.getRootNode(), file + ".PrunedParseTree");
+				}
+			}
+			catch (IOException e)
+			{
+				error = "Error writing the trees of " + file;
+			}
+		}
+		//a split parse reads the buffer in pieces and never moves the parser's own source
+		int count = buffer != null ? buffer.size() : tokens.tokenNo();
+		return new Result(file, error, count, parser.getTree().size(), System.nanoTime() - start);
+	}
+
+	//the whole file, mapped the way Lexer(String) does it
+	static ByteBuffer read(String fileName) throws IOException
+	{
+		FileInputStream in = new FileInputStream(fileName);
+		try
+		{
+			FileChannel channel = in.getChannel();
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package parser;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.*;
+import java.nio.file.*;
+import lexer.*;
+
+/*	Lexes and parses one file after another in the same JVM, so a batch
+	of small files does not pay for starting Java, loading the classes
+	and warming up the code again for every one of them. The parse table
+	is decoded once and shared by every request.
+
+		java parser.CompileServer
+		//reads requests from stdin and answers on stdout
+
+		java parser.CompileServer /tmp/spl.sock
+		//listens on a Unix domain socket, every connection is a session
+			of its own on a thread of its own
+
+	A request is one line, the answer starts with a line that says how
+	many lines follow it:
+
+		lex FILE		ok N, then the tokens as in "lexeroutput"
+		check FILE		ok 0 if the file parses
+		tree FILE		ok N, then the tree as in "ParseTree"
+		pruned FILE		ok N, then the tree as in "PrunedParseTree"
+		ast FILE OUT		ok 0, the tree is saved to OUT (see AstFile)
+		quit			ends the session
+
+	Anything that goes wrong is one line, "error " and the message the
+	Mains would print, and the session goes on with the next request.
+*/
+public class CompileServer
+{
+	private BufferedReader in;
+	private Writer out;
+
+	public CompileServer(Reader in, Writer out)
+	{
+		this.in = new BufferedReader(in);
+		this.out = new BufferedWriter(out);
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length == 0)
+		{
+			new CompileServer(new InputStreamReader(System.in), new OutputStreamWriter(System.out)).run();
+			return;
+		}
+
+		Path path = Paths.get(args[0]);
+		Files.deleteIfExists(path);
+		ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		server.bind(UnixDomainSocketAddress.of(path));
+		while (true)
+		{
+			final SocketChannel client = server.accept();
+			new Thread() {
+				public void run() {
+					try
+					{
+						new CompileServer(Channels.newReader(client, "US-ASCII"), Channels.newWriter(client, "US-ASCII")).run();
+					}
+					catch (IOException e)
+					{
+						//the client went away, there is nobody to tell
+					}
+					finally
+					{
+						try { client.close(); } catch (IOException e) {}
+					}
+				}
+			}.start();
+		}
+	}
+
+	//answers requests until quit or the end of the input
+	public void run() throws IOException
+	{
+		String request;
+		while ((request = in.readLine()) != null)
+		{
+			String words[] = request.trim().split("\\s+");
+			if (words[0].length() == 0)
+				continue;
+			if (words[0].equals("quit"))
+				break;
+			out.write(answer(words));
+			out.flush();
+		}
+		out.flush();
+	}
+
+	private String answer(String words[])
+	{
+		String command = words[0];
+		boolean ast = command.equals("ast");
+		if (!command.equals("lex") && !command.equals("check") && !command.equals("tree") && !command.equals("pruned") && !ast)
+			return "error unknown request: " + command + "\n";
+		if (words.length != (ast ? 3 : 2))
+			return "error usage: " + command + (ast ? " FILE OUT" : " FILE") + "\n";
+
+		TokenBuffer tokens;
+		try
+		{
+			tokens = new Lexer(BatchCompiler.read(words[1]), 1).getTokenBuffer();
+		}
+		catch (IOException e)
+		{
+			return "error Error reading file: " + words[1] + "\n";
+		}
+		catch (LexicalException e)
+		{
+			return "error line " + e.line + ": " + e.getMessage() + "\n";
+		}
+		if (command.equals("lex"))
+			return ok(tokens.size(), tokens.toString());
+
+		Parser parser = new Parser(tokens.source());
+		parser.setQuiet(true);
+		parser.setPruned(command.equals("pruned"));
+		if (!parser.parse())
+			return "error " + parser.getError() + "\n";
+		if (command.equals("check"))
+			return ok(0, "");
+		if (ast)
+		{
+			try
+			{
+				AstFile.write(parser.getTree(), parser.getRootNode(), words[2]);
+			}
+			catch (IOException e)
+			{
+				return "error Error writing " + words[2] + " file\n";
+			}
+			return ok(0, "");
+		}
+		String tree = parser.toString();
+		int lines = 0;
+		for (int i = 0; i < tree.length(); i++)
+			if (tree.charAt(i) == '\n')
+				lines++;
+		return ok(lines, tree);
+	}
+
+	private static String ok(int lines, String text)
+	{
+		return "ok " + lines + "\n" + text;
+	}
+}
@@ -1,110 +1,118 @@
 package parser;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.*;
+/*	The LR parse table.
 
+	The table is generated from spl.grammar into ParseTable by
+	TableGenerator (see there for the encoding), and is only decoded once,
+	when this class is loaded. All Parsers share it and nothing ever
+	writes to it.
+
+	public int action(int state, int column)
+	//the encoded cell, 0 is an error, ACCEPT is accept,
+		n > 0 is a shift (or a goto for a nonterminal) to state n - 1
+		and n < 0 is a reduce by production -n - 1
+
+	public static int column(char token)
+	//the column of a symbol in the table, -1 if it has none
+
+	public static char symbol(int column)
+	//the symbol of a column, for error messages
+
+	public static char lhs(int production)
+	public static String lhsName(int production)
+	public static int rhsLength(int production)
+	public static int keep(int production)
+	//the left hand side of a production, the number of symbols on its
+		right hand side and a bit for each of those that a pruned tree
+		keeps (bit 0 is the first symbol)
+
+	public static boolean isDropped(int column)
+	//whether a pruned tree leaves out the terminal of this column
+*/
 public class Context
 {
-	private char rowHeader [];
-	private String [][] transitionTable = new String[133][50];
+	// the terminals and then the nonterminals
+	public static final int COLUMNS = ParseTable.SYMBOLS.length();
+	public static final int FIRST_NONTERMINAL = ParseTable.TERMINALS;
+	public static final int PRODUCTIONS = ParseTable.LHS.length();
+	public static final int ACCEPT = TableGenerator.ACCEPT;
+
+	//Use this row header to determine next state
+	private static final char rowHeader [] = ParseTable.SYMBOLS.toCharArray();
+	private static final byte columnOf [] = new byte[128];
+	private static final String lhsNames [] = new String[PRODUCTIONS];
+
+	private static final short defaults [] = new short[ParseTable.ROWS];
+	private static final int base [] = new int[ParseTable.ROWS];
+	private static final short next [] = new short[ParseTable.NEXT.length()];
+	private static final short check [] = new short[ParseTable.CHECK.length()];
+
+	static
+	{
+		for (int i = 0; i < columnOf.length; i++)
+			columnOf[i] = -1;
+		for (int i = 0; i < rowHeader.length; i++)
+			columnOf[rowHeader[i]] = (byte) i;
+
+		for (int i = 0; i < lhsNames.length; i++)
+			lhsNames[i] = Character.toString(lhs(i));
 
-	private int getColumn(char token) {
-		for (int i = 0; i < rowHeader.length; i++) {
-			if (token == rowHeader[i])
-				return i; 
+		for (int i = 0; i < base.length; i++) {
+			defaults[i] = (short) ParseTable.DEFAULTS.charAt(i);
+			base[i] = ParseTable.BASE.charAt(i);
+		}
+		for (int i = 0; i < next.length; i++) {
+			next[i] = (short) ParseTable.NEXT.charAt(i);
+			check[i] = (short) ParseTable.CHECK.charAt(i);
 		}
-		return -1;
 	}
 
-	public String getState(char token, int nextRow) {
-		if (getColumn(token) != -1) {
-			return transitionTable[nextRow][getColumn(token)];
-		} 
-		return "invToken";
+	public static int column(char token)
+	{
+		if (token >= columnOf.length)
+			return -1;
+		return columnOf[token];
 	}
 
-	public String getState(char token) {
-		return getState(token, 0);
+	public int action(int state, int column)
+	{
+		int i = base[state] + column;
+		if (i < check.length && check[i] == state)
+			return next[i];
+		//a terminal without a cell of its own gets the state's default reduce
+		if (column < FIRST_NONTERMINAL)
+			return defaults[state];
+		return 0;
 	}
 
+	public static char symbol(int column)
+	{
+		return rowHeader[column];
+	}
 
-	// 50 columns 
-	public Context () {
-		//Use this row header to determine next state
-		char rowStuff [] = {'(', ')', ',', ';', '<', '=', '>', 'a', 'b', 'd', 'e', 'f', 'h', 'i', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'w', 'z', '{', '}', '$', 'A', 'B', 'C', 'D', 'I', 'L', 'N', 'O', 'P', 'Q', 'R','S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z'};
-		rowHeader = rowStuff; 
-		
-		//This business parses the file and gets the rows (numbered the same as in JFLAP and columns)
-		File file = new File("parse_table.txt");
-		try {
-			Scanner scan = new Scanner(file);
-			scan.useDelimiter("\n");
-			String str = "";
-			int row = 0; 
-			while (scan.hasNext()){
-				//System.out.print("Row " + row + ": ");
-				
-				str = scan.next();
-				char [] charArr = str.toCharArray();
-				//System.out.println(charArr);
-				String [] strArr = new String [50];
-				int count = 0;
-				String tmp = "";
-
-				int padding = 0;
-				boolean pad = true;  
-				while (pad)  {
-					if (charArr[padding] != '\t') 
-						padding++;
-					else 
-						pad = false; 
-				} padding++;
-				for (int i2 = padding; i2 < charArr.length; i2++) {
-					if(charArr[i2] == '\t') {
-						strArr[count] = null;
-						count++;
-					} else {
-						tmp = "";
-						while (charArr[i2] != '\t' && i2 < charArr.length-1) {
-							tmp += charArr[i2]; 
-							if (i2 < charArr.length-1) 
-								i2++;
-						}
-						if (i2 == charArr.length-1)
-							if (charArr[charArr.length-1] != '\t') 
-								tmp += charArr[charArr.length-1];
-
-						strArr[count] = tmp;
-						count++;
-					}
-				}
-				for (int i = 0; i < strArr.length; i++) {
-					transitionTable[row][i] = strArr[i];
-					//System.out.print(strArr[i] + "|");
-				} //System.out.println();
-				//System.out.println(count);
-				row++;
-			}
-			//System.out.println (printRow(0));
-			
-		}
-		catch (FileNotFoundException e) 
-		{
-			e.printStackTrace();
-		}
+	public static char lhs(int production)
+	{
+		return ParseTable.LHS.charAt(production);
 	}
 
-	private String printRow(int row) {
-		String tmp = "";
-		for (int i = 0; i < 50; i++) {
-			tmp += transitionTable[row][i] += " ";
-		}
-		return tmp; 
+	//the left hand side as a String, the same one every time
+	public static String lhsName(int production)
+	{
+		return lhsNames[production];
 	}
 
-	//TODO: the getNextSymbol, nextState 
-	//The best way to visualize how this should work is by playing with JFLAP 
+	public static int rhsLength(int production)
+	{
+		return ParseTable.RHS_LENGTH[production];
+	}
 
+	public static int keep(int production)
+	{
+		return ParseTable.KEEP[production];
+	}
 
-}
\ No newline at end of file
+	public static boolean isDropped(int column)
+	{
+		return column < FIRST_NONTERMINAL && ParseTable.DROP.indexOf(rowHeader[column]) >= 0;
+	}
+}
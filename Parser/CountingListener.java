@@ -0,0 +1,59 @@
+package parser;
+
+//Counts the steps of a parse, and how often every production was reduced
+public class CountingListener implements ParseListener
+{
+	private long shifts;
+	private long reduces;
+	private long gotos;
+	private long reducesBy[] = new long[Context.PRODUCTIONS];
+
+	public void shift(int state, char symbol, int tokenNo)
+	{
+		shifts++;
+	}
+
+	public void reduce(int production, int length)
+	{
+		reduces++;
+		reducesBy[production]++;
+	}
+
+	public void goTo(int state, char symbol, int next)
+	{
+		gotos++;
+	}
+
+	public long getShifts()
+	{
+		return shifts;
+	}
+
+	public long getReduces()
+	{
+		return reduces;
+	}
+
+	public long getGotos()
+	{
+		return gotos;
+	}
+
+	public long getReduces(int production)
+	{
+		return reducesBy[production];
+	}
+
+	public String toString()
+	{
+		StringBuilder out = new StringBuilder();
+		out.append("shifts: ").append(shifts).append('\n');
+		out.append("reduces: ").append(reduces).append('\n');
+		out.append("gotos: ").append(gotos).append('\n');
+		for (int p = 0; p < reducesBy.length; p++)
+			if (reducesBy[p] > 0)
+				out.append("\tproduction ").append(p).append(" (").append(Context.lhs(p))
+					.append("): ").append(reducesBy[p]).append('\n');
+		return out.toString();
+	}
+}
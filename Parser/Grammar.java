@@ -0,0 +1,172 @@
+package parser;
+
+import java.io.*;
+import java.util.*;
+
+/*	A context free grammar read from a grammar file (see spl.grammar).
+
+	Every symbol is a single character, upper case letters are
+	nonterminals and anything else is a terminal. Production 0 is the
+	augmented start production.
+
+	public int size()
+	//the number of productions
+
+	public char lhs(int production)
+	public char [] rhs(int production)
+
+	public boolean isNonterminal(char symbol)
+	public boolean isDropped(char symbol)
+	//whether the symbol was listed under %drop
+
+	public String nodeName(char nonterminal)
+	//the name %node gave the nonterminal, null if it has none
+	public String productionName(int production)
+	//the name after %name on the production's line, null if it has none
+
+	public char [] terminals()
+	public char [] nonterminals()
+	//the symbols that are used, sorted, without the start symbol
+*/
+public class Grammar
+{
+	private ArrayList<Character> lhs = new ArrayList<Character>();
+	private ArrayList<char []> rhs = new ArrayList<char []>();
+	private ArrayList<String> names = new ArrayList<String>();
+	private TreeSet<Character> terminals = new TreeSet<Character>();
+	private TreeSet<Character> nonterminals = new TreeSet<Character>();
+	private HashSet<Character> dropped = new HashSet<Character>();
+	private HashMap<Character, String> nodeNames = new HashMap<Character, String>();
+
+	public Grammar(String fileName) throws IOException
+	{
+		BufferedReader in = new BufferedReader(new FileReader(fileName));
+		String line;
+		int lineNo = 0;
+		while ((line = in.readLine()) != null) {
+			lineNo++;
+			int comment = line.indexOf('#');
+			if (comment >= 0)
+				line = line.substring(0, comment);
+			line = line.trim();
+			if (line.length() == 0)
+				continue;
+
+			if (line.startsWith("%drop")) {
+				for (char x : symbols(line.substring(5)))
+					dropped.add(x);
+				continue;
+			}
+
+			if (line.startsWith("%node")) {
+				String [] words = line.substring(5).trim().split("\\s+");
+				if (words.length != 2 || words[0].length() != 1 || !isNonterminal(words[0].charAt(0))
+						|| !Character.isJavaIdentifierStart(words[1].charAt(0))) {
+					in.close();
+					throw new IOException(fileName + ":" + lineNo + ": expected '%node A Name'");
+				}
+				nodeNames.put(words[0].charAt(0), words[1]);
+				continue;
+			}
+
+			String name = null;
+			int tag = line.indexOf("%name");
+			if (tag >= 0) {
+				name = line.substring(tag + 5).trim();
+				line = line.substring(0, tag);
+				if (name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0))) {
+					in.close();
+					throw new IOException(fileName + ":" + lineNo + ": expected a name after %name");
+				}
+			}
+
+			int arrow = line.indexOf("->");
+			char [] left = arrow < 0 ? null : symbols(line.substring(0, arrow));
+			if (left == null || left.length != 1 || !isNonterminal(left[0])) {
+				in.close();
+				throw new IOException(fileName + ":" + lineNo + ": expected a production like 'A -> x B y'");
+			}
+			char [] right = symbols(line.substring(arrow + 2));
+			lhs.add(left[0]);
+			rhs.add(right);
+			names.add(name);
+			for (char x : right)
+				if (!isNonterminal(x))
+					terminals.add(x);
+		}
+		in.close();
+
+		if (lhs.isEmpty())
+			throw new IOException(fileName + ": no productions");
+		for (int i = 1; i < lhs.size(); i++)
+			nonterminals.add(lhs.get(i));
+		for (char [] right : rhs)
+			for (char x : right)
+				if (isNonterminal(x) && !nonterminals.contains(x))
+					throw new IOException(fileName + ": " + x + " has no productions");
+	}
+
+	//every character that is not a space is a symbol
+	private static char [] symbols(String text)
+	{
+		StringBuilder out = new StringBuilder();
+		for (int i = 0; i < text.length(); i++)
+			if (!Character.isWhitespace(text.charAt(i)))
+				out.append(text.charAt(i));
+		return out.toString().toCharArray();
+	}
+
+	public int size()
+	{
+		return lhs.size();
+	}
+
+	public char lhs(int production)
+	{
+		return lhs.get(production);
+	}
+
+	public char [] rhs(int production)
+	{
+		return rhs.get(production);
+	}
+
+	public boolean isNonterminal(char symbol)
+	{
+		return symbol >= 'A' && symbol <= 'Z';
+	}
+
+	public boolean isDropped(char symbol)
+	{
+		return dropped.contains(symbol);
+	}
+
+	public String nodeName(char nonterminal)
+	{
+		return nodeNames.get(nonterminal);
+	}
+
+	public String productionName(int production)
+	{
+		return names.get(production);
+	}
+
+	public char [] terminals()
+	{
+		return toArray(terminals);
+	}
+
+	public char [] nonterminals()
+	{
+		return toArray(nonterminals);
+	}
+
+	private static char [] toArray(Set<Character> set)
+	{
+		char [] out = new char[set.size()];
+		int i = 0;
+		for (char x : set)
+			out[i++] = x;
+		return out;
+	}
+}
@@ -17,9 +17,11 @@ public class InfoTable
 		return symbols.indexOf(item);
 	}
 	
-	public void insert(int ID, String tokenClass, String snippet){
+	//returns the index of the new item, which getType and setType take
+	public int insert(int ID, String tokenClass, String snippet){
 		TableItem item = new TableItem(ID, tokenClass, snippet);
 		symbols.add(item);
+		return symbols.size() - 1;
 	}
 
 	public char getType(int ID){
@@ -1,5 +1,6 @@
 import lexer.Lexer;
-//dimport parser.*;
+import lexer.LexicalException;
+import parser.*;
 import java.io.*;
 import java.util.Scanner;
 
@@ -16,8 +17,17 @@ public class Main
 		}
 		System.out.println(tl);
 	}*/ 
-		Lexer l= new Lexer("test1.spl");
-		Parser prsr = new Parser();
+		Lexer l;
+		try {
+			l = new Lexer("test1.spl");
+		} catch (LexicalException e) {
+			System.out.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+		if (l.readFailed())
+			System.exit(1);
+		Parser prsr = new Parser(l.getTokens());
 		
 		if(prsr.parse()) {
 			String pTree = "ParseTree";
@@ -0,0 +1,168 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.concurrent.*;
+import lexer.*;
+
+/*	Parses a long program in pieces on all cores at once.
+
+	A program is a chain of statements, C -> I and C -> C ; I, and then
+	maybe the procedures after a "; proc". Every ';' that is not inside
+	( ) or { } and does not start the procedures is between two
+	statements. The tokens are cut at some of those into one piece per
+	core and every piece is parsed on its own from state 0, as if it was
+	a program of its own.
+
+	The statements of the pieces are then copied into one tree in order
+	and the C chain is built over them again, with the ';' that were cut
+	at in between. Nodes are copied in the order a parse of the whole
+	program would make them, so every node gets the same ID it would get
+	then. The parser then parses the rest (the procedures, or nothing)
+	from where the chain is on its stack.
+
+	public static boolean parse(Parser parser, TokenBuffer tokens)
+	public static boolean parse(Parser parser, TokenBuffer tokens, int pieces)
+	//parses the tokens with the parser, which has to have been made on
+		tokens.source(). A pruned parser, one that builds no tree, a short
+		program or a piece that does not parse make it parse the whole
+		program the normal way, so the syntax error is the same. The
+		listener only hears about what comes after the statements.
+*/
+public class ParallelParser
+{
+	//a piece is never shorter than this many tokens
+	private static final int MIN_PIECE = 1 << 16;
+
+	private static final int CHAIN_START, CHAIN_NEXT;	//C -> I and C -> C ; I
+	private static final int AFTER_CHAIN, AFTER_SEMICOLON;	//the states after C and C ;
+
+	static
+	{
+		int start = -1, next = -1;
+		for (int p = 0; p < Context.PRODUCTIONS; p++)
+			if (Context.lhs(p) == 'C')
+			{
+				if (Context.rhsLength(p) == 1)
+					start = p;
+				else
+					next = p;
+			}
+		CHAIN_START = start;
+		CHAIN_NEXT = next;
+		Context context = new Context();
+		AFTER_CHAIN = context.action(0, Context.column('C')) - 1;
+		AFTER_SEMICOLON = context.action(AFTER_CHAIN, Context.column(';')) - 1;
+	}
+
+	public static boolean parse(Parser parser, TokenBuffer tokens)
+	{
+		int pieces = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), tokens.size() / MIN_PIECE));
+		return parse(parser, tokens, pieces);
+	}
+
+	public static boolean parse(Parser parser, TokenBuffer tokens, int pieces)
+	{
+		if (pieces < 2 || parser.isPruned() || !parser.isBuildingTree())
+			return parser.parse();
+
+		//cut at the first top level ';' after every 1/pieces of the tokens
+		ArrayList<Integer> cuts = new ArrayList<Integer>();
+		int end = tokens.size();
+		int depth = 0;
+		for (int i = 0; i < tokens.size(); i++)
+		{
+			char symbol = TokenKind.terminal(tokens.code(i));
+			if (symbol == '(' || symbol == '{')
+				depth++;
+			else if (symbol == ')' || symbol == '}')
+				depth--;
+			else if (symbol == ';' && depth == 0)
+			{
+				if (i + 1 == tokens.size() || TokenKind.terminal(tokens.code(i + 1)) == 'p')
+				{
+					end = i;
+					break;
+				}
+				if (i >= (long) tokens.size() * (cuts.size() + 1) / pieces)
+					cuts.add(i);
+			}
+		}
+		if (cuts.isEmpty())
+			return parser.parse();
+
+		ArrayList<ForkJoinTask<Parser>> parsed = new ArrayList<ForkJoinTask<Parser>>();
+		for (int k = 0; k <= cuts.size(); k++)
+		{
+			final TokenSource piece = tokens.source(k == 0 ? 0 : cuts.get(k - 1) + 1, k < cuts.size() ? cuts.get(k) : end);
+			parsed.add(ForkJoinPool.commonPool().submit(new Callable<Parser>() {
+				public Parser call() {
+					Parser p = new Parser(piece);
+					p.setQuiet(true);
+					return p.parse() ? p : null;
+				}
+			}));
+		}
+
+		TreeStore tree = new TreeStore(2 * end);
+		int chain = TreeStore.NONE;
+		int children[] = new int[3];
+		for (int k = 0; k < parsed.size(); k++)
+		{
+			Parser piece = parsed.get(k).join();
+			if (piece == null)
+			{
+				for (int j = k + 1; j < parsed.size(); j++)
+					parsed.get(j).cancel(false);
+				return parser.parse();
+			}
+			TreeStore from = piece.getTree();
+
+			//down the chain of the piece to its first statement, Q -> P -> C
+			int c = from.firstChild(from.firstChild(piece.getRootNode()));
+			while (from.production(c) == CHAIN_NEXT)
+				c = from.firstChild(c);
+
+			int semicolon = TreeStore.NONE;
+			if (k > 0)
+			{
+				int at = cuts.get(k - 1);
+				semicolon = tree.addToken(tokens.code(at), at, null);
+				tree.setState(semicolon, AFTER_CHAIN);
+			}
+			int statement = from.firstChild(c);
+			while (true)
+			{
+				int first = statement;
+				while (from.firstChild(first) != TreeStore.NONE)
+					first = from.firstChild(first);
+				int copy = tree.copy(from, first, statement, 0);
+				if (chain == TreeStore.NONE)
+				{
+					children[0] = copy;
+					chain = tree.addNode(CHAIN_START, children, 0, 1);
+				}
+				else
+				{
+					//the first statement of a piece was parsed from state 0,
+					//here it comes after a ';' like the others
+					if (semicolon != TreeStore.NONE && tree.state(copy) != AFTER_SEMICOLON)
+						for (int n = copy; n != TreeStore.NONE; n = tree.firstChild(n))
+							tree.setState(n, AFTER_SEMICOLON);
+					children[0] = chain;
+					children[1] = semicolon;
+					children[2] = copy;
+					chain = tree.addNode(CHAIN_NEXT, children, 0, 3);
+				}
+				tree.setState(chain, 0);
+
+				c = from.parent(c);
+				if (from.production(c) != CHAIN_NEXT)
+					break;
+				int s = from.nextSibling(from.firstChild(c));
+				semicolon = tree.copy(from, s, s, 0);
+				statement = from.nextSibling(s);
+			}
+		}
+		return parser.parseAfter(tree, chain, tokens.source(end));
+	}
+}
@@ -0,0 +1,49 @@
+package parser;
+
+import lexer.TokenSource;
+
+/*	Gets told about every step the Parser takes.
+
+	All the methods do nothing by default, so a listener only has to
+	implement what it wants. The parser uses NONE when nobody is
+	listening, which costs nothing.
+
+	The steps come in the order of the tree's nodes: a reduce comes
+	after everything under it, so a listener can work out what it needs
+	on a stack of its own as it goes. With Parser.setBuildTree(false)
+	the parser keeps nothing but its stack and the listener is all there
+	is, for files too big to keep a tree of.
+
+	public void shift(int state, char symbol, int tokenNo)
+	//the token tokenNo was shifted, going to state
+
+	public void token(TokenSource token)
+	//comes right after shift, token is on the token that was shifted
+		until the method returns, so it can be asked for its snippet
+
+	public void reduce(int production, int length)
+	//length symbols were reduced by production
+
+	public void goTo(int state, char symbol, int next)
+	//after a reduce, the left hand side symbol took state to next
+
+	public void accept()
+	public void error(int state, char symbol)
+	//the parse is over, error gives the state and the symbol it failed on
+*/
+public interface ParseListener
+{
+	public static final ParseListener NONE = new ParseListener() {};
+
+	public default void shift(int state, char symbol, int tokenNo) {}
+
+	public default void token(TokenSource token) {}
+
+	public default void reduce(int production, int length) {}
+
+	public default void goTo(int state, char symbol, int next) {}
+
+	public default void accept() {}
+
+	public default void error(int state, char symbol) {}
+}
@@ -0,0 +1,116 @@
+package parser;
+
+//Generated by TableGenerator from spl.grammar, do not edit.
+//See TableGenerator for how the table is encoded.
+final class ParseTable
+{
+	//the columns, terminals first
+	static final String SYMBOLS = "(),;<=>abdefhilmnopqrstuwz{}$ABCDILNOPQRSTUVWXYZ";
+	static final int TERMINALS = 29;
+	static final int ROWS = 133;
+
+	//the terminals a pruned tree leaves out
+	static final String DROP = "(),;{}";
+
+	//for every production its left hand side, how many symbols it has on the right
+	//and a bit for each of them that a pruned tree keeps
+	static final String LHS = "EQPPDDRCCIIIIIOYVVSNAUUXXXLLLWWBBBBBBZZOIUTT";
+	static final int RHS_LENGTH [] =
+	{
+		1, 1, 1, 3, 1, 2, 5, 1, 3, 1,
+		1, 1, 1, 1, 4, 1, 1, 1, 1, 1,
+		3, 1, 1, 1, 1, 1, 6, 6, 6, 8,
+		12, 6, 5, 5, 2, 6, 6, 7, 22, 4,
+		1, 1, 1, 1
+	};
+
+	static final int KEEP [] =
+	{
+		0x1, 0x1, 0x1, 0x5, 0x1, 0x3, 0xb, 0x1, 0x5, 0x1,
+		0x1, 0x1, 0x1, 0x1, 0x5, 0x1, 0x1, 0x1, 0x1, 0x1,
+		0x7, 0x1, 0x1, 0x1, 0x1, 0x1, 0x15, 0x15, 0x15, 0x55,
+		0x555, 0x15, 0xe, 0xe, 0x3, 0x15, 0x15, 0x25, 0x115ddd, 0x5,
+		0x1, 0x1, 0x1, 0x1
+	};
+
+	static final String DEFAULTS =
+		"\000\000\ufff6\000\000\ufff0\000\000\ufff4\ufffd\ufff8\uffd4\ufff5\ufffe\000\uffd5" +
+		"\000\ufff3\uffd7\ufff2\000\000\000\000\000\000\000\000\000\000\000\000" +
+		"\000\uffed\uffee\uffef\000\uffec\000\000\000\000\ufffc\ufff7\ufffb\uffe7\000\000" +
+		"\000\uffe9\uffe6\uffe8\uffea\uffeb\uffd6\000\000\000\uffdd\000\000\ufff1\000\000" +
+		"\uffd8\000\ufffa\000\000\000\000\000\000\000\000\000\000\000\000\000" +
+		"\000\000\000\000\000\000\000\000\000\000\000\000\000\000\uffdf\uffde" +
+		"\000\000\000\000\000\000\uffda\ufff9\000\000\000\uffdc\uffe0\uffdb\uffe2\000" +
+		"\uffe5\uffe3\uffe4\000\000\000\000\000\000\uffe1\000\000\000\000\000\000" +
+		"\000\000\000\000\uffd9";
+
+	static final String BASE =
+		"\000\001\000\002\005\004\016\017\000\017\000\000\000\000\000\000" +
+		"\021\000\000\000\000\020\023\u0152\111\045\u0121\055\032\042\u016b\064" +
+		"\071\000\000\000\076\000\115\130\134\110\000\000\043\000\146\152" +
+		"\160\000\000\000\000\000\000\000\u016f\177\000\u0173\141\000\166\145" +
+		"\000\146\000\070\202\314\101\105\200\202\203\163\214\157\112\222" +
+		"\232\241\250\255\u017e\244\u0190\224\136\000\225\u0133\u0144\u0155\000\000" +
+		"\261\263\265\005\265\u0103\000\000\271\275\276\000\000\000\263\300" +
+		"\000\000\000\257\307\271\146\020\306\000\305\323\203\325\321\335" +
+		"\337\312\336\022\000";
+
+	static final String NEXT =
+		"\034\025\026\146\107\027\110\035\146\uffed\036\002\003\004\030\031" +
+		"\037\040\032\146\005\146\033\006\007\010\071\147\u8000\011\041\012" +
+		"\157\013\072\014\015\016\017\042\020\021\046\172\022\205\023\024" +
+		"\002\003\004\043\074\052\047\052\044\005\075\045\006\007\010\076" +
+		"\056\057\011\103\046\053\054\060\014\015\055\061\055\020\021\046" +
+		"\070\022\077\023\024\002\003\004\046\100\063\064\046\101\005\102" +
+		"\042\006\007\010\123\120\104\011\124\012\105\013\043\014\015\133" +
+		"\106\044\020\021\051\046\022\114\023\024\002\003\004\046\115\116" +
+		"\117\145\125\005\126\127\006\007\010\171\056\057\011\130\132\131" +
+		"\013\060\014\015\134\061\042\020\021\046\046\022\135\023\024\002" +
+		"\003\004\043\136\063\064\176\044\005\137\112\006\007\010\140\121" +
+		"\150\011\154\144\155\013\156\014\015\160\161\042\020\021\162\163" +
+		"\022\164\023\024\002\003\004\043\165\166\167\173\044\005\174\142" +
+		"\006\007\010\175\056\057\011\177\170\200\013\060\014\015\201\061" +
+		"\202\020\021\046\203\022\000\023\024\002\003\004\000\000\063\064" +
+		"\000\000\005\000\000\006\007\010\000\122\000\011\000\204\000\013" +
+		"\000\014\015\000\000\000\020\021\000\000\022\000\023\024\002\003" +
+		"\004\000\000\000\000\000\000\005\000\000\006\007\010\000\000\000" +
+		"\011\000\000\000\054\000\014\015\000\056\057\020\021\000\000\022" +
+		"\060\023\024\000\061\000\062\000\042\000\000\056\057\000\000\000" +
+		"\000\000\060\063\064\000\061\000\000\065\046\066\056\057\067\000" +
+		"\000\000\034\060\000\063\064\061\000\035\000\046\036\056\057\000" +
+		"\151\000\037\040\060\000\063\064\061\000\000\034\046\000\000\034" +
+		"\050\152\035\034\000\036\035\063\064\036\035\037\040\036\034\037" +
+		"\040\000\153\037\040\035\000\000\036\073\000\000\000\111\037\040" +
+		"\034\113\000\000\000\000\000\035\000\000\036\000\141\000\000\000" +
+		"\037\040\000\000\000\000\000\000\000\000\000\000\000\000\143";
+
+	static final String CHECK =
+		"\024\001\003\131\067\004\067\024\143\005\024\000\000\000\006\007" +
+		"\024\024\011\167\000\203\020\000\000\000\034\131\016\000\024\000" +
+		"\143\000\035\000\000\000\000\025\000\000\026\167\000\203\000\000" +
+		"\031\031\031\025\037\054\026\031\025\031\040\025\031\031\031\044" +
+		"\103\103\031\054\033\031\031\103\031\031\054\103\031\031\031\103" +
+		"\033\031\046\031\031\116\116\116\106\047\103\103\107\050\116\051" +
+		"\030\116\116\116\106\103\056\116\107\116\057\116\030\116\116\116" +
+		"\060\030\116\116\030\130\116\074\116\116\115\115\115\166\076\077" +
+		"\101\130\110\115\111\112\115\115\115\166\104\104\115\113\115\114" +
+		"\115\104\115\115\117\104\071\115\115\104\174\115\120\115\115\127" +
+		"\127\127\071\121\104\104\174\071\127\122\071\127\127\127\123\104" +
+		"\132\127\140\127\141\127\142\127\127\144\150\125\127\127\151\152" +
+		"\127\156\127\127\165\165\165\125\157\163\164\170\125\165\172\125" +
+		"\165\165\165\173\105\105\165\175\165\176\165\105\165\165\177\105" +
+		"\200\165\165\105\201\165\uffff\165\165\202\202\202\uffff\uffff\105\105" +
+		"\uffff\uffff\202\uffff\uffff\202\202\202\uffff\105\uffff\202\uffff\202\uffff\202" +
+		"\uffff\202\202\uffff\uffff\uffff\202\202\uffff\uffff\202\uffff\202\202\145\145" +
+		"\145\uffff\uffff\uffff\uffff\uffff\uffff\145\uffff\uffff\145\145\145\uffff\uffff\uffff" +
+		"\145\uffff\uffff\uffff\145\uffff\145\145\uffff\032\032\145\145\uffff\uffff\145" +
+		"\032\145\145\uffff\032\uffff\032\uffff\032\uffff\uffff\133\133\uffff\uffff\uffff" +
+		"\uffff\uffff\133\032\032\uffff\133\uffff\uffff\032\133\032\134\134\032\uffff" +
+		"\uffff\uffff\027\134\uffff\133\133\134\uffff\027\uffff\134\027\135\135\uffff" +
+		"\133\uffff\027\027\135\uffff\134\134\135\uffff\uffff\036\135\uffff\uffff\070" +
+		"\027\134\036\073\uffff\036\070\135\135\070\073\036\036\073\124\070" +
+		"\070\uffff\135\073\073\124\uffff\uffff\124\036\uffff\uffff\uffff\070\124\124" +
+		"\126\073\uffff\uffff\uffff\uffff\uffff\126\uffff\uffff\126\uffff\124\uffff\uffff\uffff" +
+		"\126\126\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\126";
+
+}
@@ -11,428 +11,381 @@ public class Parser
 	private InfoTable table;
 
 
-	private TokenList lexerList; 
-	private Queue<Character> list; 
-	private Stack<String> stack; 
-	private Stack<TreeNode> nodeStack; 
-	private int bigCounter;
+	private TokenSource source; 
+	private ParseListener listener = ParseListener.NONE;
+	private int states[];
+	private int nodes[];
+	private int top;
 	
+	private TreeStore tree;
+	private boolean pruned = false;
+	private boolean quiet = false;
+	private boolean buildTree = true;
+	private String error;
+	private int rootNode = TreeStore.NONE;
 	private TreeNode root;
+	
+	//set when this parse is the previous one again after an edit
+	private Parser previous;
+	private TokenEdit edit;
+	
+	//a node that is on the stack before the first token, see parseAfter
+	private int startNode = TreeStore.NONE;
+
+	//the productions and their table columns, looked up once and not on every step
+	private static final char lhs[] = new char[Context.PRODUCTIONS];
+	private static final int rhsLength[] = new int[Context.PRODUCTIONS];
+	private static final int lhsColumn[] = new int[Context.PRODUCTIONS];
+	private static final int keepMask[] = new int[Context.PRODUCTIONS];
+	private static final boolean dropped[] = new boolean[Context.COLUMNS];
+	private static final int terminalColumn[] = new int[TokenKind.values().length];
+	private static final int EOF_COLUMN = Context.column(TokenKind.EOF.terminal);
+
+	static
+	{
+		for (int i = 0; i < lhs.length; i++)
+		{
+			lhs[i] = Context.lhs(i);
+			rhsLength[i] = Context.rhsLength(i);
+			lhsColumn[i] = Context.column(lhs[i]);
+			keepMask[i] = Context.keep(i);
+		}
+		for (int i = 0; i < dropped.length; i++)
+			dropped[i] = Context.isDropped(i);
+		for (int i = 0; i < terminalColumn.length; i++)
+			terminalColumn[i] = Context.column(TokenKind.terminal(i));
+	}
 
 
+	//Reads the "lexeroutput" file written by a Lexer in another process
 	public Parser () {
-		//This lexeroutput file is from the example.spl file in this directory 
-		lexerList = new TokenList("lexeroutput"); 
-		list = convertToParseFormat(lexerList);
-		//System.out.println(list);
+		this(new TokenList("lexeroutput"));
+	}
 
-		//Prints out the table ready queue (just to see it)
-		while (!list.isEmpty()) {
-			System.out.print(list.remove());
-		}
-		System.out.println();
-		stack = new Stack<String>();
-		nodeStack = new Stack<TreeNode>();
+	//Pulls the tokens straight from the lexer, nothing goes through a file
+	public Parser (TokenSource tokens) {
+		source = tokens;
+		states = new int[64];
+		nodes = new int[64];
 		context = new Context();
-		bigCounter = 0;
+		tree = new TreeStore();
 		
 		table = new InfoTable();
 	} 
 
-	private Queue<Character> convertToParseFormat(TokenList list){ 
-		TokenNode tmp = null; 
-		Queue<Character> tmpQ = new LinkedList<Character>();
-
-		//All this business is adding 
-		while (!list.isEmpty()){ 
-			tmp = list.removeFromHead(); 
-			// for integers
-			// integer -> b
-
-			// for user-defined name 
-			// user-defined name -> u
-
-			// for short strings
-			// short string -> s
-			if (tmp.tokenClass.equals("integer") || tmp.tokenClass.equals("user-defined name") || tmp.tokenClass.equals("short string")) {
-				if (tmp.tokenClass.equals("integer")) {
-					//if (tmp.snippet.equals("0")) tmpQ.add('0');
-					//else if (tmp.snippet.equals("1")) tmpQ.add('1');
-					//else 
-					tmpQ.add('b');
-				} else if (tmp.tokenClass.equals("user-defined name")) {
-					tmpQ.add('u');
-				} else if (tmp.tokenClass.equals("short string")) {
-					tmpQ.add('s');
-				}
-			} else {
-				if (tmp.tokenClass.equals("keyword")) {
-					switch (tmp.snippet) {
-						// "eq" -> e/
-						// "and"-> a/
-						// "or" -> o/
-						// "not" -> n
-						// "add" -> d
-						// "sub" -> q 
-						// "mult" -> m
-						// "if" -> f 
-						// "then" -> t
-						// "else" -> l
-						// "while" -> w
-						// "for" -> r
-						// "input" -> i
-						// "output" -> z
-						// "halt" -> h
-						// "proc" -> p
-						case "eq":
-							tmpQ.add('e');
-							break;
-						case "and": 
-							tmpQ.add('a');
-							break;
-						case "or": 
-							tmpQ.add('o');
-							break;
-						case "not": 
-							tmpQ.add('n');
-							break; 
-						case "add":
-							tmpQ.add('d');
-							break;
-						case "sub":
-							tmpQ.add('q');
-							break;
-						case "mult":
-							tmpQ.add('m');
-							break;
-						case "if":
-							tmpQ.add('f');
-							break;
-						case "then":
-							tmpQ.add('t');
-							break;
-						case "else":
-							tmpQ.add('l');
-							break;
-						case "while":
-							tmpQ.add('w');
-							break;
-						case "for":
-							tmpQ.add('r');
-							break;
-						case "input":
-							tmpQ.add('i');
-							break;
-						case "output":
-							tmpQ.add('z');
-							break;
-						case "halt":
-							tmpQ.add('h');
-							break;
-						case "proc":
-							tmpQ.add('p');
-							break;
-						default: 
-							System.out.println("system error with keyword parse conversion ");
-							break; 
-					}
-				} else if (tmp.tokenClass.equals("grouping symbol")) {
-					//Snippets for grouping symbols
-					// (
-					// )
-					// {
-					// }
-					// ,
-					// ;
-					tmpQ.add(tmp.snippet.charAt(0));
-
-				} else if (tmp.tokenClass.equals("comparison symbol")) {
-					tmpQ.add(tmp.snippet.charAt(0));
-				} else if (tmp.tokenClass.equals("assignment operator")) {
-					tmpQ.add(tmp.snippet.charAt(0));
-				} else {
-					System.out.println("system error with parse conversion");
-				}
-			}
-
+	//Parses the tokens of an edited file, reusing what it can of the tree
+	//the parser of the file before the edit made. Only the tokens from the
+	//first edited one up to where the old subtrees fit again are parsed,
+	//the tree and its IDs come out the same as parsing the whole file.
+	//Reused subtrees are not told to the listener. They and the nodes
+	//before the edit are still copied into a new tree, which is as big as
+	//the file, see TokenEdit.
+	public Parser (TokenEdit edit, Parser previous) {
+		this(edit.tokens.source());
+		//a pruned tree or one that did not parse has nothing to go on
+		if (previous.rootNode != TreeStore.NONE && !previous.pruned)
+		{
+			this.edit = edit;
+			this.previous = previous;
+			tree = new TreeStore(Math.max(64, previous.tree.size()));
 		}
+	}
 
-
-//snippets for comparison symbols
-// <
-// > 
-
-//Snippets for assignment operator
-// =
-		return tmpQ; 
-
+	//builds the tree the way prune() would leave it, so the grouping symbols
+	//never get a node, the other nodes have the same IDs as in the full tree
+	public void setPruned(boolean pruned)
+	{
+		this.pruned = pruned;
+	}
+	
+	//false only tells the listener about the parse and makes no tree, the
+	//memory it takes is then only as big as the stack gets
+	public void setBuildTree(boolean buildTree)
+	{
+		this.buildTree = buildTree;
+	}
+	
+	boolean isBuildingTree()
+	{
+		return buildTree;
+	}
+	
+	//parse() prints nothing, getError() still says what went wrong
+	public void setQuiet(boolean quiet)
+	{
+		this.quiet = quiet;
+	}
+	
+	//gets told about every shift and reduce, null stops the telling
+	public void setListener(ParseListener listener)
+	{
+		this.listener = listener == null ? ParseListener.NONE : listener;
 	}
 	
 	public Boolean parse()
 	{
-		System.out.println("Starting parsing process: ");
+		if (!quiet)
+			System.out.println("Starting parsing process: ");
+		error = null;
 		
-		lexerList = new TokenList("lexeroutput"); 		
-		list = convertToParseFormat(lexerList);
-		lexerList = new TokenList("lexeroutput"); 
-		lexerList.addToken(bigCounter++, "eof", "$");
-		list.add('$');
-		
-		int curState = 0;
-		Character curSymbol;
-		String tempString= "";
-		
-		stack.push(Integer.toString(0));
-		curSymbol = list.remove();
-		TreeNode tmpNode;
-///////////////////
-//System.out.println("In Parse: before remove. lexerlist is " + lexerList);				
-		TokenNode curToken;// = lexerList.removeFromHead();
-		TreeNode curNode;// = new TreeNode(bigCounter++, curToken.tokenClass, curToken.snippet);//change 0 to ID
-		//nodeStack.push(curNode);
+		//states[top] is the current state, nodes[top] the tree node of the symbol that got there
+		top = 0;
+		states[0] = 0;
+		if (previous != null && !resume())
+		{
+			top = 0;
+			previous = null;
+			tree = new TreeStore();
+			source = edit.tokens.source();
+		}
+		if (startNode != TreeStore.NONE)
+			push(context.action(0, lhsColumn[tree.production(startNode)]) - 1, startNode);
+		int curSymbol = nextSymbol();
 		
 		while (true)
 		{
-			if (stack.peek() == null)
-			{
-				System.out.println("Syntax error: null ptr" + curSymbol);
-				return false;
-				//break;
-			}
-				
-			tempString = context.getState(curSymbol, Integer.parseInt(stack.peek()));
-///////////////////
-//System.out.println("In Parse: while ");				
-//System.out.println("\t stack " + stack);				
-//System.out.println("\t tempString is " + tempString);				
+			int action = context.action(states[top], curSymbol);
 			
-			if (tempString == null)
+			if (action == 0)
 			{
-				System.out.println("Syntax error: " + curSymbol);
-				return false;
-				//break;
+				listener.error(states[top], Context.symbol(curSymbol));
+				return fail("Syntax error: " + Context.symbol(curSymbol));
 			}
-			else if (tempString.equals("acc"))
+			else if (action == Context.ACCEPT)
 			{
-				System.out.println("Syntax accepted");
-				root = nodeStack.pop();
+				listener.accept();
+				if (!quiet)
+					System.out.println("Syntax accepted");
+				rootNode = nodes[top];
+				root = null;
 				break;
 			}
-			else if (tempString.charAt(0) == 's')
+			else if (action > 0)
 			{
-///////////////////
-System.out.println("In Parse: shift " + tempString.substring(1));				
-//System.out.println("\t stack " + stack);				
-//System.out.println("\t curSymbol is " + curSymbol);				
-//System.out.println("\t curState is " + curState);
-//System.out.println("\t where stackpeek is " + Integer.parseInt(stack.peek()));						
-				
-				stack.push(tempString.substring(1));
-///////////////////
-//System.out.println("In Parse: before remove again. list is " + list);						
-//System.out.println("In Parse: before remove again. lexerlist is " + lexerList);	
-				
-				curSymbol = list.remove();
-				curToken = lexerList.removeFromHead();
-				curNode = new TreeNode(bigCounter++, curToken.tokenClass, curToken.snippet);//change 0 to ID
-				nodeStack.push(curNode);
+				int reused = reusable(curSymbol);
+				if (reused != TreeStore.NONE)
+				{
+					curSymbol = reuse(reused);
+					continue;
+				}
+				listener.shift(action - 1, Context.symbol(curSymbol), source.tokenNo());
+				listener.token(source);
+				if (!buildTree)
+					push(action - 1, TreeStore.NONE);
+				else if (pruned && dropped[curSymbol])
+				{
+					tree.skip();
+					push(action - 1, TreeStore.NONE);
+				}
+				else
+				{
+					int leaf = tree.addToken(source);
+					tree.setState(leaf, states[top]);
+					push(action - 1, leaf);
+				}
+				curSymbol = nextSymbol();
 			}
-			else //==r
+			else //reduce
 			{
-				int production = Integer.parseInt(tempString.substring(1));
-				Character n = LHSymbol(production);
-				int r = RHSymbolNum(production);
-			
-///////////////////
-System.out.println("In Parse: reduce " + tempString.substring(1));				
-//System.out.println("\t stack " + stack);				
-//System.out.println("\t curSymbol is " + curSymbol);				
-//System.out.println("\t curState is " + curState);				
-//System.out.println("\t n is " + n);				
-//System.out.println("\t r is " + r);				
+				int production = -action - 1;
+				int r = rhsLength[production];
+				listener.reduce(production, r);
 				
-				tmpNode = new TreeNode(bigCounter++, Character.toString(n), "none");//change 0 to ID				
-				for (int i = 0; i < r; i++)
+				top -= r;
+				int node = TreeStore.NONE;
+				if (buildTree)
 				{
-					tmpNode.addChild(nodeStack.pop());
-					stack.pop();
+					if (pruned)
+					{
+						//only the kept children are moved down, in the same order
+						int keep = keepMask[production];
+						int kept = 0;
+						for (int i = 0; i < r; i++)
+							if ((keep & 1 << i) != 0)
+								nodes[top + 1 + kept++] = nodes[top + 1 + i];
+						node = tree.addNode(production, nodes, top + 1, kept);
+					}
+					else
+						node = tree.addNode(production, nodes, top + 1, r);
+					tree.setState(node, states[top]);
 				}
-//////////////////////////
-System.out.println("\t about to push " + context.getState(n, Integer.parseInt(stack.peek())));				
-//System.out.println("\t where curSymbol is " + curSymbol);
-System.out.println("\t where n is " + n);
-System.out.println("\t where stackpeek is " + Integer.parseInt(stack.peek()));		
-//System.out.println("In Parse: list is " + list);			
-				
-				stack.push(context.getState(n, Integer.parseInt(stack.peek())));
-				nodeStack.push(tmpNode);
+				int next = context.action(states[top], lhsColumn[production]);
+				if (next <= 0)
+				{
+					listener.error(states[top], Context.symbol(curSymbol));
+					return fail("Syntax error: null ptr" + Context.symbol(curSymbol));
+				}
+				listener.goTo(states[top], lhs[production], next - 1);
+				push(next - 1, node);
 			}
 		}
 		
-		System.out.println("--------------------------------------------------- ");
-		System.out.println("File passed parsing phase ");		
+		if (!quiet)
+		{
+			System.out.println("--------------------------------------------------- ");
+			System.out.println("File passed parsing phase ");
+		}
 		return true; 
 	}	
 	
-	public Character LHSymbol(int production)
+	private boolean fail(String message)
 	{
-		switch (production)
-		{
-			case 0: return 'E';
-			case 1: return 'Q';
-			case 2: return 'P';
-			case 3: return 'P';
-			case 4: return 'D';
-			case 5: return 'D';
-			case 6: return 'R';
-			case 7: return 'C';
-			case 8: return 'C';
-			case 9: return 'I';
-			case 10: return 'I';
-			case 11: return 'I';
-			case 12: return 'I';
-			case 13: return 'I';
-			case 14: return 'O';
-			case 15: return 'Y';
-			case 16: return 'V';
-			case 17: return 'V';
-			case 18: return 'S';
-			case 19: return 'N';
-			case 20: return 'A';
-			case 21: return 'U';
-			case 22: return 'U';
-			case 23: return 'X';
-			case 24: return 'X';
-			case 25: return 'X';
-			case 26: return 'L';
-			case 27: return 'L';
-			case 28: return 'L';
-			case 29: return 'W';
-			case 30: return 'W';
-			case 31: return 'B';
-			case 32: return 'B';
-			case 33: return 'B';
-			case 34: return 'B';
-			case 35: return 'B';
-			case 36: return 'B';
-			case 37: return 'Z';
-			case 38: return 'Z';
-			case 39: return 'O';
-			case 40: return 'I';
-			case 41: return 'U';
-			case 42: return 'T';
-			case 43: return 'T';
-			default: return '#';
-			
-		}
+		error = message;
+		if (!quiet)
+			System.out.println(message);
+		return false;
 	}
 	
-	public int RHSymbolNum(int production)
+	//what made the last parse fail, null if it did not
+	public String getError()
+	{
+		return error;
+	}
+	
+	//Parses the rest of the tokens after a node that was made without this
+	//parser and is the first thing on the stack. ParallelParser uses it
+	//for what comes after the statements it parsed in pieces.
+	Boolean parseAfter(TreeStore tree, int node, TokenSource rest)
 	{
-		switch (production)
+		this.tree = tree;
+		source = rest;
+		startNode = node;
+		try
+		{
+			return parse();
+		}
+		finally
 		{
-			case 0: return 1;
-			case 1: return 1;
-			case 2: return 1;
-			case 3: return 3;
-			case 4: return 1;
-			case 5: return 2;
-			case 6: return 5;
-			case 7: return 1;
-			case 8: return 3;
-			case 9: return 1;
-			case 10: return 1;
-			case 11: return 1;
-			case 12: return 1;
-			case 13: return 1;
-			case 14: return 4;
-			case 15: return 1;
-			case 16: return 1;
-			case 17: return 1;
-			case 18: return 1;
-			case 19: return 1;
-			case 20: return 3;
-			case 21: return 1;
-			case 22: return 1;
-			case 23: return 1;
-			case 24: return 1;
-			case 25: return 1;
-			case 26: return 6;
-			case 27: return 6;
-			case 28: return 6;
-			case 29: return 8;
-			case 30: return 12;
-			case 31: return 6;
-			case 32: return 5;
-			case 33: return 5;
-			case 34: return 2;
-			case 35: return 6;
-			case 36: return 6;
-			case 37: return 7;
-			case 38: return 22;
-			case 39: return 4;
-			case 40: return 1;
-			case 41: return 1;
-			case 42: return 1;
-			case 43: return 1;
-			default: return -1;		
+			startNode = TreeStore.NONE;
 		}
 	}
+	
+	boolean isPruned()
+	{
+		return pruned;
+	}
+	
+	//Puts back the stack the previous parse had just after shifting the last
+	//token before the edit: every ancestor of that token's leaf has its
+	//children to the left of the path down to it on the stack. Those nodes
+	//are copied as they are, the states are found again from the gotos.
+	private boolean resume()
+	{
+		source = edit.tokens.source(edit.first);
+		if (edit.first == 0)
+			return true;
+		TreeStore old = previous.tree;
+		int last = old.leaf(edit.first - 1);
+		if (last == TreeStore.NONE)
+			return false;
+		tree.copy(old, 0, last, 0);
 
-	//TODO: because when you reduce you use a production number, there has to be some kind of data structure with all the productions
+		//the path is collected from the leaf up, so every level goes in
+		//backwards and the whole thing is turned around at the end
+		int stack[] = new int[16];
+		int count = 0;
+		stack[count++] = last;
+		for (int node = last; old.parent(node) != TreeStore.NONE; node = old.parent(node))
+		{
+			int from = count;
+			for (int child = old.firstChild(old.parent(node)); child != node; child = old.nextSibling(child))
+			{
+				if (count == stack.length)
+					stack = Arrays.copyOf(stack, count * 2);
+				stack[count++] = child;
+			}
+			reverse(stack, from, count);
+		}
+		reverse(stack, 0, count);
 
-	//Get a symbol and number 
-	//r means reduce 
-	//reduce has a production number next to it
-	//s means shift
-	//shift is a state number next to it
+		for (int i = 0; i < count; i++)
+		{
+			int node = stack[i];
+			int column = tree.isToken(node) ? terminalColumn[tree.code(node)] : lhsColumn[tree.production(node)];
+			int next = context.action(states[top], column);
+			if (next <= 0 || next == Context.ACCEPT)
+				return false;
+			push(next - 1, node);
+		}
+		return true;
+	}
 
+	private static void reverse(int a[], int from, int to)
+	{
+		for (to--; from < to; from++, to--)
+		{
+			int tmp = a[from];
+			a[from] = a[to];
+			a[to] = tmp;
+		}
+	}
 
-	//TODO: shift
-	//A symbol is read from the input and pushed on the stack
-	//The symbol
-	//after the symbol the state is put 
-	private void shift(Character symbol, int state) 
+	//The biggest old subtree that starts at the token about to be shifted,
+	//if that token is after the edit and its leaf was shifted in the state
+	//the parser is in now. Everything the old parse did from there until
+	//the subtree was done would happen again the same way. NONE otherwise.
+	private int reusable(int curSymbol)
 	{
-		//create new node
-		//push new node to reference stack
-		stack.push(symbol.toString());
-		stack.push(Integer.toString(state));
+		if (previous == null || curSymbol == EOF_COLUMN || source.tokenNo() < edit.end)
+			return TreeStore.NONE;
+		TreeStore old = previous.tree;
+		int leaf = old.leaf(source.tokenNo() - edit.shift());
+		if (leaf == TreeStore.NONE || old.state(leaf) != states[top])
+			return TreeStore.NONE;
+		int node = leaf;
+		while (old.parent(node) != TreeStore.NONE && old.firstChild(old.parent(node)) == node)
+			node = old.parent(node);
+		//a leaf on its own is just shifted
+		return node == leaf ? TreeStore.NONE : node;
 	}
 
-	//TODO: reduce
-	//The right hand side of a production are replaced by the 
-	//nonterminal on the left hand side. 
-	//and popped off the stack 
-	//important: the last symbol on the right hand side is the top of the stack
-	//When things are reduced the new top of the stack is used for the next state
-	//then the left hand side is put and then the state. (always symbol then state)
-	//when reduced the right hand side is the children of the left hand side 
-	private Character reduce(int production) 
-	{ 
-	/*	//make newNode
-		switch (production)
+	//Copies an old subtree, pushes it like a reduce would and moves the
+	//source past its tokens. Gives the column of the token after it.
+	private int reuse(int node)
+	{
+		TreeStore old = previous.tree;
+		int first = old.leaf(source.tokenNo() - edit.shift());
+		int lastLeaf = node;
+		while (!old.isToken(lastLeaf))
+			lastLeaf--;
+		int copy = tree.copy(old, first, node, edit.shift());
+		push(context.action(states[top], lhsColumn[old.production(node)]) - 1, copy);
+		source = edit.tokens.source(old.tokenNo(lastLeaf) + edit.shift() + 1);
+		return nextSymbol();
+	}
+	
+	private void push(int state, int node)
+	{
+		if (++top == states.length)
 		{
-			case 18:
-			{
-				stack.pop;
-				stack.pop;
-				//Node n1 = stack.pop;
-				//newNode.child = n1;
-				stack.push('S');
-			};break;
-			default: System.out.println("didn't do that one yet..");
+			states = Arrays.copyOf(states, top * 2);
+			nodes = Arrays.copyOf(nodes, top * 2);
 		}
-		*/
-	////////////////////////////////////////////
-		System.out.println("REDUCE:reducing on production: " + production);
-		
-		////////////////////////////////////////////
-		System.out.println("REDUCE: just popped " + stack.pop());	
-		System.out.println("REDUCE: just popped " + stack.pop());	
-		System.out.println("REDUCE: stack is " + stack);	
-		//stack.push("S");
-		return 'S';
+		states[top] = state;
+		nodes[top] = node;
+	}
+	
+	//Moves the source on by one token and gives the table column of its symbol,
+	//'$' marks the end of the input
+	private int nextSymbol()
+	{
+		if (!source.next())
+			return EOF_COLUMN;
+		return terminalColumn[source.code()];
+	}
+	
+	public char LHSymbol(int production)
+	{
+		if (production < 0 || production >= lhs.length)
+			return '#';
+		return lhs[production];
+	}
+	
+	public int RHSymbolNum(int production)
+	{
+		if (production < 0 || production >= rhsLength.length)
+			return -1;
+		return rhsLength[production];
 	}
 
 	public void print()
@@ -442,67 +395,58 @@ System.out.println("\t where stackpeek is " + Integer.parseInt(stack.peek()));
 	
 	public String toString()	
 	{
-		return DFPrint(root, 0);
-		/*
-		String ret = "";
-			TreeNode cur = root;
-			Queue<TreeNode> q = new LinkedList<TreeNode>();
-			int stop = 1, count = 1, level = 0;
-			if (cur != null)
-			{
-				q.add(cur);
-				while (!q.isEmpty())
-				{
-					cur = q.remove();
-					ret += cur.toString() + '\n';
-					for (int i = 0; i < cur.childrenSize(); i++)
-						q.add(cur.getChild(i));
-					if (stop == count)
-					{
-						stop = q.size();
-						ret += "\n------------------------------------------\nlevel: " + level + '\n';
-						level++;
-						count = 0;
-					}
-					count++;
-				}
-			}
-		return ret;
-			*/
+		StringBuilder out = new StringBuilder();
+		try
+		{
+			//the store is printed as it is, unless its TreeNodes were made and maybe pruned
+			if (root != null)
+				new TreeWriter(out).write(root);
+			else
+				new TreeWriter(out).write(tree, rootNode);
+		}
+		catch (IOException e)
+		{
+			//a StringBuilder does not throw
+		}
+		return out.toString();
 	}
 	
 	public String DFPrint(TreeNode cur, int depth)
 	{
-		String ret = "";
-		if (cur != null)
+		StringBuilder out = new StringBuilder();
+		try
 		{
-			for (int i = 0; i < depth; i++)
-				ret += "---";
-			ret += cur.toString() + '\n';
-			
-			for (int i = 0; i < cur.childrenSize(); i++)
-				ret += DFPrint(cur.getChild(i), depth + 1);
+			new TreeWriter(out).write(cur, depth);
 		}
-		return ret;
+		catch (IOException e)
+		{
+			//a StringBuilder does not throw
+		}
+		return out.toString();
 	}
 	
 	public void prune()
 	{
-		if (root != null) root.prune();
+		if (getRoot() != null) root.prune();
 	}
 	
 	public void writeToTreeFile()
+	{
+		writeToTreeFile("ParseTree");
+	}
+	
+	public void writeToTreeFile(String pTree)
 	{
 		try
 		{
-			parse();
-			String pTree = "ParseTree";
-			Scanner scan = new Scanner(System.in);
-			FileWriter fw = new FileWriter(pTree);
-			fw.write(toString());
+			//the tokens can only be read once, so only parse if that has not happened yet
+			if (rootNode == TreeStore.NONE && !parse())
+				return;
+			if (root != null)
+				TreeWriter.write(root, pTree);
+			else
+				TreeWriter.write(tree, rootNode, pTree);
 			System.out.println("Parse Tree saved to file '" + pTree + "\n---------------------------------------------'");
-			scan.close();
-			fw.close(); 		
 		}
 		catch (IOException e)
 		{
@@ -511,19 +455,17 @@ System.out.println("\t where stackpeek is " + Integer.parseInt(stack.peek()));
 	}
 	
 	public void writeToPrunedTreeFile()
+	{
+		writeToPrunedTreeFile("PrunedParseTree");
+	}
+	
+	public void writeToPrunedTreeFile(String pTree)
 	{
 		try
 		{
-			FileWriter fw = new FileWriter("PrunedParseTree");	
-			Scanner scan = new Scanner(System.in);		
 			prune();
-			String pTree = "PrunedParseTree";
-			scan = new Scanner(System.in);
-			fw = new FileWriter(pTree);
-			fw.write(toString());
+			TreeWriter.write(root, pTree);
 			System.out.println("Pruned Parse Tree saved to file '" + pTree + "\n---------------------------------------------'");
-			scan.close();
-			fw.close();
 		}
 		catch (IOException e)
 		{
@@ -531,11 +473,48 @@ System.out.println("\t where stackpeek is " + Integer.parseInt(stack.peek()));
 		}
 	}
 	
+	//saves the tree as it was built (see setPruned) in the binary format
+	//of AstFile, so the later phases do not have to parse again
+	public void writeToAstFile(String fileName)
+	{
+		try
+		{
+			if (rootNode == TreeStore.NONE && !parse())
+				return;
+			AstFile.write(tree, rootNode, fileName);
+			System.out.println("Syntax tree saved to file '" + fileName + "'");
+		}
+		catch (IOException e)
+		{
+			System.out.println("Error writing " + fileName + " file");
+		}
+	}
+	
+	//the tree as TreeNodes, they are only made the first time they are asked for
 	public TreeNode getRoot()
 	{
+		if (root == null && rootNode != TreeStore.NONE)
+			root = tree.toTreeNode(rootNode);
 		return root;
 	}
 	
+	public TreeStore getTree()
+	{
+		return tree;
+	}
+	
+	//the tree as typed nodes (see Ast), made again every time, null before a successful parse
+	public Ast getAst()
+	{
+		return rootNode == TreeStore.NONE ? null : Ast.build(tree, rootNode);
+	}
+	
+	//the root of the tree in getTree(), NONE before a successful parse
+	public int getRootNode()
+	{
+		return rootNode;
+	}
+	
 	public InfoTable getTable()
 	{
 		return table;
@@ -0,0 +1,212 @@
+package parser;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import lexer.TokenKind;
+import lexer.TokenSource;
+
+/*	A parse written down as the productions it reduced by, in order, which
+	is all it takes to get the parse back when the tokens are there too.
+
+	As a listener it writes down a parse while it happens:
+
+		ReductionLog log = new ReductionLog();
+		parser.setListener(log);
+		parser.setBuildTree(false);
+		parser.parse();
+
+	Every reduce is its production number and every run of k shifts in a
+	row is -k, one int each. That is about one int per node, the bytes of
+	toBytes are about one per node.
+
+	public boolean replay(TokenSource tokens, ParseListener listener)
+	//tells the listener about the same parse again, every shift, token,
+		reduce and goto, the states come from the parse table. A
+		TreeBuilder makes the tree (or the pruned one) again, a
+		CountingListener counts, anything else sees it as a parse.
+		False if the log is of a parse that failed.
+
+	public int[] toArray()
+	public static ReductionLog fromArray(int log[])
+	public byte[] toBytes()
+	public static ReductionLog fromBytes(byte bytes[])
+	//the log as ints, or as bytes with every int taking 7 bits of each
+		byte it needs (zigzag first, so -1 is one byte too)
+
+	A log that does not fit the tokens or the parse table, or bytes that
+	stop in the middle of an int or have one longer than 5 bytes, throw an
+	IllegalStateException before the listener hears about the step that
+	does not fit.
+*/
+public class ReductionLog implements ParseListener
+{
+	private static final int terminalColumn[] = new int[TokenKind.values().length];
+	private static final int EOF_COLUMN = Context.column(TokenKind.EOF.terminal);
+
+	static
+	{
+		for (int i = 0; i < terminalColumn.length; i++)
+			terminalColumn[i] = Context.column(TokenKind.terminal(i));
+	}
+
+	private int log[];
+	private int count;
+	private int shifts;	//the run of shifts that has not been written yet
+
+	public ReductionLog()
+	{
+		log = new int[64];
+		count = 0;
+	}
+
+	public static ReductionLog fromArray(int log[])
+	{
+		ReductionLog read = new ReductionLog();
+		read.log = Arrays.copyOf(log, Math.max(1, log.length));
+		read.count = log.length;
+		return read;
+	}
+
+	public void shift(int state, char symbol, int tokenNo)
+	{
+		shifts++;
+	}
+
+	public void reduce(int production, int length)
+	{
+		flush();
+		add(production);
+	}
+
+	public void accept()
+	{
+		flush();
+	}
+
+	public void error(int state, char symbol)
+	{
+		flush();
+	}
+
+	private void flush()
+	{
+		if (shifts > 0)
+			add(-shifts);
+		shifts = 0;
+	}
+
+	private void add(int entry)
+	{
+		if (count == log.length)
+			log = Arrays.copyOf(log, count * 2);
+		log[count++] = entry;
+	}
+
+	public int size()
+	{
+		return count;
+	}
+
+	public int[] toArray()
+	{
+		return Arrays.copyOf(log, count);
+	}
+
+	public byte[] toBytes()
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream(count + count / 4);
+		for (int i = 0; i < count; i++)
+		{
+			int v = log[i] << 1 ^ log[i] >> 31;
+			while ((v & ~0x7f) != 0)
+			{
+				out.write(v & 0x7f | 0x80);
+				v >>>= 7;
+			}
+			out.write(v);
+		}
+		return out.toByteArray();
+	}
+
+	public static ReductionLog fromBytes(byte bytes[])
+	{
+		ReductionLog read = new ReductionLog();
+		for (int i = 0; i < bytes.length; )
+		{
+			int v = 0;
+			for (int shift = 0; ; shift += 7)
+			{
+				if (i == bytes.length)
+					throw new IllegalStateException("The log ends in the middle of an entry");
+				int b = bytes[i++];
+				//an int has 4 bits left for the fifth byte and no sixth
+				if (shift == 28 && (b & 0xf0) != 0)
+					throw new IllegalStateException("The log has an entry longer than an int");
+				v |= (b & 0x7f) << shift;
+				if ((b & 0x80) == 0)
+					break;
+			}
+			read.add(v >>> 1 ^ -(v & 1));
+		}
+		return read;
+	}
+
+	public boolean replay(TokenSource tokens, ParseListener listener)
+	{
+		Context context = new Context();
+		int states[] = new int[64];
+		int top = 0;
+		states[0] = 0;
+		for (int i = 0; i < count; i++)
+		{
+			if (top + 1 >= states.length)
+				states = Arrays.copyOf(states, states.length * 2);
+			if (log[i] < 0)
+			{
+				for (int k = log[i]; k < 0; k++)
+				{
+					if (!tokens.next())
+						throw new IllegalStateException("The log has more tokens than the source");
+					int column = terminalColumn[tokens.code()];
+					int next = context.action(states[top], column);
+					if (next <= 0 || next == Context.ACCEPT)
+						throw new IllegalStateException("The log does not fit token " + tokens.tokenNo());
+					listener.shift(next - 1, Context.symbol(column), tokens.tokenNo());
+					listener.token(tokens);
+					if (++top == states.length)
+						states = Arrays.copyOf(states, top * 2);
+					states[top] = next - 1;
+				}
+			}
+			else
+			{
+				int production = log[i];
+				if (production >= Context.PRODUCTIONS || Context.rhsLength(production) > top
+						|| !reduces(context, states[top], production))
+					throw new IllegalStateException("The log does not fit the parse table at " + i);
+				int length = Context.rhsLength(production);
+				int next = context.action(states[top - length], Context.column(Context.lhs(production)));
+				if (next <= 0)
+					throw new IllegalStateException("The log does not fit the parse table at " + i);
+				listener.reduce(production, length);
+				top -= length;
+				listener.goTo(states[top], Context.lhs(production), next - 1);
+				states[++top] = next - 1;
+			}
+		}
+		//the last token is the eof that comes after all of them
+		if (tokens.next() || context.action(states[top], EOF_COLUMN) != Context.ACCEPT)
+			return false;
+		listener.accept();
+		return true;
+	}
+
+	//whether the state reduces by the production on some terminal
+	private static boolean reduces(Context context, int state, int production)
+	{
+		for (int column = 0; column < Context.FIRST_NONTERMINAL; column++)
+			if (context.action(state, column) == -production - 1)
+				return true;
+		return false;
+	}
+}
@@ -0,0 +1,549 @@
+package parser;
+
+import java.io.*;
+import java.util.*;
+
+/*	Build step: makes the LALR(1) parse table for a grammar file and writes
+	it, with what the parser needs to know about the productions, to
+	ParseTable.java.
+
+		java parser.TableGenerator spl.grammar ParseTable.java
+
+	The states are the LR(0) item sets, and the lookaheads of their kernel
+	items are found by spreading them along the goto edges (the dragon book
+	way). Every conflict is reported, and resolved like JFLAP did: a shift
+	wins over a reduce, and between reduces the lowest production wins.
+
+	Every cell is a short:
+		0		error (empty cell)
+		n + 1		shift to state n, or goto state n in a nonterminal column
+		-(r + 1)	reduce by production r
+		ACCEPT		accept
+
+	A state that reduces gets its most used reduce as its default, which
+	is taken for every terminal that has no cell of its own. That leaves
+	most of the terminal cells empty, and an error is still found before
+	the next token is shifted.
+
+	The rows are then packed into one array with row displacement: row s
+	starts at base[s] in next[]/check[], and a cell only belongs to row s
+	if check[] says so. Most of the table is empty, so rows can overlap.
+*/
+public class TableGenerator
+{
+	public static final short ACCEPT = Short.MIN_VALUE;
+
+	private Grammar grammar;
+
+	//the columns: the terminals, '$' and then the nonterminals
+	private char [] symbols;
+	private int terminals;
+	private int [] column = new int[128];
+
+	//productions with their symbols as columns, the start symbol is -1
+	private int [] lhs;
+	private int [][] rhs;
+	private ArrayList<ArrayList<Integer>> productionsOf = new ArrayList<ArrayList<Integer>>();
+
+	private boolean [] nullable;
+	private BitSet [] first;
+
+	//an item is its production << 8 | the position of the dot
+	private ArrayList<int []> kernels = new ArrayList<int []>();
+	private HashMap<String, Integer> stateOf = new HashMap<String, Integer>();
+	private ArrayList<int []> gotos = new ArrayList<int []>();
+	private ArrayList<BitSet []> lookaheads = new ArrayList<BitSet []>();
+
+	private short [][] cells;
+	private short [] defaults;
+	private int conflicts;
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 2) {
+			System.out.println("usage: java parser.TableGenerator spl.grammar ParseTable.java");
+			return;
+		}
+		TableGenerator generator = new TableGenerator(new Grammar(args[0]));
+		generator.write(args[1], args[0]);
+		System.out.println(generator.kernels.size() + " states, " + generator.conflicts + " conflicts resolved");
+		System.out.println("Parse table written to '" + args[1] + "'");
+	}
+
+	public TableGenerator(Grammar grammar)
+	{
+		this.grammar = grammar;
+		columns();
+		computeFirst();
+		buildStates();
+		computeLookaheads();
+		buildTable();
+		chooseDefaults();
+	}
+
+	private void columns()
+	{
+		char [] t = grammar.terminals();
+		char [] n = grammar.nonterminals();
+		terminals = t.length + 1;
+		symbols = new char[terminals + n.length];
+		System.arraycopy(t, 0, symbols, 0, t.length);
+		symbols[t.length] = '$';
+		System.arraycopy(n, 0, symbols, terminals, n.length);
+
+		Arrays.fill(column, -1);
+		for (int i = 0; i < symbols.length; i++) {
+			column[symbols[i]] = i;
+			productionsOf.add(new ArrayList<Integer>());
+		}
+
+		lhs = new int[grammar.size()];
+		rhs = new int[grammar.size()][];
+		for (int p = 0; p < grammar.size(); p++) {
+			lhs[p] = column[grammar.lhs(p)];
+			char [] right = grammar.rhs(p);
+			rhs[p] = new int[right.length];
+			for (int i = 0; i < right.length; i++)
+				rhs[p][i] = column[right[i]];
+			if (lhs[p] >= 0)
+				productionsOf.get(lhs[p]).add(p);
+		}
+	}
+
+	private boolean isNonterminal(int symbol)
+	{
+		return symbol >= terminals;
+	}
+
+	//FIRST of every nonterminal, terminals are their own FIRST
+	private void computeFirst()
+	{
+		nullable = new boolean[symbols.length];
+		first = new BitSet[symbols.length];
+		for (int i = 0; i < symbols.length; i++) {
+			first[i] = new BitSet();
+			if (!isNonterminal(i))
+				first[i].set(i);
+		}
+
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int p = 1; p < rhs.length; p++) {
+				BitSet set = first[lhs[p]];
+				int before = set.cardinality();
+				boolean empty = true;
+				for (int x : rhs[p]) {
+					set.or(first[x]);
+					if (!nullable[x]) {
+						empty = false;
+						break;
+					}
+				}
+				if (empty && !nullable[lhs[p]]) {
+					nullable[lhs[p]] = true;
+					changed = true;
+				}
+				if (set.cardinality() != before)
+					changed = true;
+			}
+		}
+	}
+
+	private static int item(int production, int dot)
+	{
+		return production << 8 | dot;
+	}
+
+	private static int production(int item)
+	{
+		return item >> 8;
+	}
+
+	private static int dot(int item)
+	{
+		return item & 0xff;
+	}
+
+	//the symbol after the dot, -1 at the end of the production
+	private int after(int item)
+	{
+		int [] right = rhs[production(item)];
+		return dot(item) < right.length ? right[dot(item)] : -1;
+	}
+
+	//the LR(0) states, numbered in the order they are found
+	private void buildStates()
+	{
+		addState(new int [] { item(0, 0) });
+		for (int s = 0; s < kernels.size(); s++) {
+			int [] items = closure(kernels.get(s));
+			int [] go = gotos.get(s);
+			for (int x = 0; x < symbols.length; x++) {
+				ArrayList<Integer> moved = new ArrayList<Integer>();
+				for (int i : items)
+					if (after(i) == x)
+						moved.add(i + 1);
+				if (moved.isEmpty())
+					continue;
+				int [] kernel = new int[moved.size()];
+				for (int i = 0; i < kernel.length; i++)
+					kernel[i] = moved.get(i);
+				Arrays.sort(kernel);
+				go[x] = addState(kernel);
+			}
+		}
+	}
+
+	private int addState(int [] kernel)
+	{
+		String key = Arrays.toString(kernel);
+		Integer state = stateOf.get(key);
+		if (state != null)
+			return state;
+		stateOf.put(key, kernels.size());
+		kernels.add(kernel);
+		int [] go = new int[symbols.length];
+		Arrays.fill(go, -1);
+		gotos.add(go);
+		return kernels.size() - 1;
+	}
+
+	private int [] closure(int [] kernel)
+	{
+		LinkedHashSet<Integer> items = new LinkedHashSet<Integer>();
+		ArrayDeque<Integer> todo = new ArrayDeque<Integer>();
+		for (int i : kernel)
+			if (items.add(i))
+				todo.add(i);
+		while (!todo.isEmpty()) {
+			int x = after(todo.remove());
+			if (x >= 0 && isNonterminal(x))
+				for (int p : productionsOf.get(x))
+					if (items.add(item(p, 0)))
+						todo.add(item(p, 0));
+		}
+		int [] out = new int[items.size()];
+		int n = 0;
+		for (int i : items)
+			out[n++] = i;
+		return out;
+	}
+
+	//the LR(1) closure, every item with the set of its lookaheads
+	private LinkedHashMap<Integer, BitSet> closure(int [] kernel, BitSet [] kernelLookaheads)
+	{
+		LinkedHashMap<Integer, BitSet> items = new LinkedHashMap<Integer, BitSet>();
+		for (int i = 0; i < kernel.length; i++)
+			items.put(kernel[i], (BitSet) kernelLookaheads[i].clone());
+
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (Map.Entry<Integer, BitSet> entry : new ArrayList<Map.Entry<Integer, BitSet>>(items.entrySet())) {
+				int i = entry.getKey();
+				int x = after(i);
+				if (x < 0 || !isNonterminal(x))
+					continue;
+
+				//what can follow x here
+				BitSet follow = new BitSet();
+				int [] right = rhs[production(i)];
+				boolean rest = true;
+				for (int k = dot(i) + 1; k < right.length && rest; k++) {
+					follow.or(first[right[k]]);
+					rest = nullable[right[k]];
+				}
+				if (rest)
+					follow.or(entry.getValue());
+
+				for (int p : productionsOf.get(x)) {
+					BitSet set = items.get(item(p, 0));
+					if (set == null) {
+						items.put(item(p, 0), (BitSet) follow.clone());
+						changed = true;
+					} else {
+						int before = set.cardinality();
+						set.or(follow);
+						if (set.cardinality() != before)
+							changed = true;
+					}
+				}
+			}
+		}
+		return items;
+	}
+
+	private int kernelIndex(int state, int item)
+	{
+		return Arrays.binarySearch(kernels.get(state), item);
+	}
+
+	//Works out which lookaheads every kernel item gets by itself and which it
+	//passes on from the kernel item it came from, then spreads them
+	private void computeLookaheads()
+	{
+		int marker = symbols.length;
+		ArrayList<int []> edges = new ArrayList<int []>();
+
+		for (int s = 0; s < kernels.size(); s++) {
+			BitSet [] sets = new BitSet[kernels.get(s).length];
+			for (int k = 0; k < sets.length; k++)
+				sets[k] = new BitSet();
+			lookaheads.add(sets);
+		}
+		lookaheads.get(0)[0].set(column['$']);
+
+		for (int s = 0; s < kernels.size(); s++) {
+			int [] kernel = kernels.get(s);
+			for (int k = 0; k < kernel.length; k++) {
+				BitSet probe = new BitSet();
+				probe.set(marker);
+				LinkedHashMap<Integer, BitSet> items = closure(new int [] { kernel[k] }, new BitSet [] { probe });
+				for (Map.Entry<Integer, BitSet> entry : items.entrySet()) {
+					int x = after(entry.getKey());
+					if (x < 0)
+						continue;
+					int target = gotos.get(s)[x];
+					int index = kernelIndex(target, entry.getKey() + 1);
+					BitSet own = (BitSet) entry.getValue().clone();
+					if (own.get(marker)) {
+						own.clear(marker);
+						edges.add(new int [] { s, k, target, index });
+					}
+					lookaheads.get(target)[index].or(own);
+				}
+			}
+		}
+
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int [] edge : edges) {
+				BitSet from = lookaheads.get(edge[0])[edge[1]];
+				BitSet to = lookaheads.get(edge[2])[edge[3]];
+				int before = to.cardinality();
+				to.or(from);
+				if (to.cardinality() != before)
+					changed = true;
+			}
+		}
+	}
+
+	private void buildTable()
+	{
+		cells = new short[kernels.size()][symbols.length];
+		for (int s = 0; s < kernels.size(); s++) {
+			int [] go = gotos.get(s);
+			for (int x = 0; x < symbols.length; x++)
+				if (go[x] >= 0)
+					cells[s][x] = (short) (go[x] + 1);
+
+			LinkedHashMap<Integer, BitSet> items = closure(kernels.get(s), lookaheads.get(s));
+			for (Map.Entry<Integer, BitSet> entry : items.entrySet()) {
+				int i = entry.getKey();
+				if (after(i) >= 0)
+					continue;
+				BitSet set = entry.getValue();
+				for (int t = set.nextSetBit(0); t >= 0 && t < terminals; t = set.nextSetBit(t + 1))
+					setReduce(s, t, production(i));
+			}
+		}
+	}
+
+	private void setReduce(int state, int terminal, int production)
+	{
+		short cell = cells[state][terminal];
+		short reduce = production == 0 ? ACCEPT : (short) -(production + 1);
+		if (cell == 0) {
+			cells[state][terminal] = reduce;
+			return;
+		}
+
+		conflicts++;
+		String on = "state " + state + " on '" + symbols[terminal] + "': ";
+		if (cell > 0) {
+			System.out.println("shift/reduce conflict in " + on + "shift, not reduce by " + production);
+		} else {
+			int other = cell == ACCEPT ? 0 : -cell - 1;
+			int keep = Math.min(other, production);
+			System.out.println("reduce/reduce conflict in " + on + "reduce by " + keep + ", not "
+					+ Math.max(other, production));
+			cells[state][terminal] = keep == 0 ? ACCEPT : (short) -(keep + 1);
+		}
+	}
+
+	private void chooseDefaults()
+	{
+		defaults = new short[cells.length];
+		for (int s = 0; s < cells.length; s++) {
+			HashMap<Short, Integer> uses = new HashMap<Short, Integer>();
+			short best = 0;
+			int most = 0;
+			for (int t = 0; t < terminals; t++) {
+				short cell = cells[s][t];
+				if (cell >= 0 || cell == ACCEPT)
+					continue;
+				int n = uses.containsKey(cell) ? uses.get(cell) + 1 : 1;
+				uses.put(cell, n);
+				//ties go to the lowest production, which is the highest cell
+				if (n > most || (n == most && cell > best)) {
+					most = n;
+					best = cell;
+				}
+			}
+			defaults[s] = best;
+			if (best != 0)
+				for (int t = 0; t < terminals; t++)
+					if (cells[s][t] == best)
+						cells[s][t] = 0;
+		}
+	}
+
+	public void write(String fileName, String grammarName) throws IOException
+	{
+		int rows = cells.length;
+		int width = symbols.length;
+		int [] base = new int[rows];
+		short [] next = new short[rows * width];
+		short [] check = new short[rows * width];
+		Arrays.fill(check, (short) -1);
+		int used = 0;
+
+		//the fullest rows are placed first, the rest fill the gaps
+		Integer [] order = new Integer[rows];
+		for (int i = 0; i < rows; i++)
+			order[i] = i;
+		Arrays.sort(order, (a, b) -> filled(cells[b]) - filled(cells[a]));
+
+		for (int r : order) {
+			int offset = 0;
+			while (!fits(cells[r], offset, check))
+				offset++;
+			base[r] = offset;
+			for (int c = 0; c < width; c++)
+				if (cells[r][c] != 0) {
+					next[offset + c] = cells[r][c];
+					check[offset + c] = (short) r;
+					used = Math.max(used, offset + c + 1);
+				}
+		}
+
+		StringBuilder dropped = new StringBuilder();
+		for (int t = 0; t < terminals; t++)
+			if (grammar.isDropped(symbols[t]))
+				dropped.append(symbols[t]);
+
+		StringBuilder lhsNames = new StringBuilder();
+		int [] rhsLength = new int[rhs.length];
+		int [] keep = new int[rhs.length];
+		for (int p = 0; p < rhs.length; p++) {
+			lhsNames.append(grammar.lhs(p));
+			char [] right = grammar.rhs(p);
+			rhsLength[p] = right.length;
+			for (int i = 0; i < right.length; i++)
+				if (!grammar.isDropped(right[i]))
+					keep[p] |= 1 << i;
+		}
+
+		StringBuilder out = new StringBuilder();
+		out.append("package parser;\n\n");
+		out.append("//Generated by TableGenerator from ").append(grammarName).append(", do not edit.\n");
+		out.append("//See TableGenerator for how the table is encoded.\n");
+		out.append("final class ParseTable\n{\n");
+		out.append("\t//the columns, terminals first\n");
+		out.append("\tstatic final String SYMBOLS = ").append(quote(new String(symbols))).append(";\n");
+		out.append("\tstatic final int TERMINALS = ").append(terminals).append(";\n");
+		out.append("\tstatic final int ROWS = ").append(rows).append(";\n\n");
+		out.append("\t//the terminals a pruned tree leaves out\n");
+		out.append("\tstatic final String DROP = ").append(quote(dropped.toString())).append(";\n\n");
+		out.append("\t//for every production its left hand side, how many symbols it has on the right\n");
+		out.append("\t//and a bit for each of them that a pruned tree keeps\n");
+		out.append("\tstatic final String LHS = ").append(quote(lhsNames.toString())).append(";\n");
+		appendArray(out, "RHS_LENGTH", rhsLength, false);
+		appendArray(out, "KEEP", keep, true);
+		appendConstant(out, "DEFAULTS", toChars(defaults, rows));
+		appendConstant(out, "BASE", toChars(base, rows));
+		appendConstant(out, "NEXT", toChars(next, used));
+		appendConstant(out, "CHECK", toChars(check, used));
+		out.append("}\n");
+
+		FileWriter fw = new FileWriter(fileName);
+		fw.write(out.toString());
+		fw.close();
+	}
+
+	private static int filled(short [] row)
+	{
+		int n = 0;
+		for (short cell : row)
+			if (cell != 0)
+				n++;
+		return n;
+	}
+
+	private static boolean fits(short [] row, int offset, short [] check)
+	{
+		for (int c = 0; c < row.length; c++)
+			if (row[c] != 0 && check[offset + c] != -1)
+				return false;
+		return true;
+	}
+
+	private static char [] toChars(int [] values, int length)
+	{
+		char [] chars = new char[length];
+		for (int i = 0; i < length; i++)
+			chars[i] = (char) values[i];
+		return chars;
+	}
+
+	private static char [] toChars(short [] values, int length)
+	{
+		char [] chars = new char[length];
+		for (int i = 0; i < length; i++)
+			chars[i] = (char) values[i];
+		return chars;
+	}
+
+	private static String quote(String text)
+	{
+		StringBuilder out = new StringBuilder("\"");
+		for (char x : text.toCharArray()) {
+			if (x == '"' || x == '\\')
+				out.append('\\');
+			out.append(x);
+		}
+		return out.append('"').toString();
+	}
+
+	private static void appendArray(StringBuilder out, String name, int [] values, boolean hex)
+	{
+		out.append("\tstatic final int ").append(name).append(" [] =\n\t{");
+		for (int i = 0; i < values.length; i++) {
+			out.append(i % 10 == 0 ? "\n\t\t" : " ");
+			out.append(hex ? "0x" + Integer.toHexString(values[i]) : Integer.toString(values[i]));
+			if (i < values.length - 1)
+				out.append(',');
+		}
+		out.append("\n\t};\n\n");
+	}
+
+	//Strings are the cheapest way to put a lot of numbers in a class file
+	private static void appendConstant(StringBuilder out, String name, char [] chars)
+	{
+		out.append("\tstatic final String ").append(name).append(" =");
+		for (int i = 0; i < chars.length; i++) {
+			if (i % 16 == 0)
+				out.append(i == 0 ? "\n\t\t\"" : "\" +\n\t\t\"");
+			//small values as octal, javac would turn a unicode escape like 000a into a real newline
+			if (chars[i] < 0400)
+				out.append(String.format("\\%03o", (int) chars[i]));
+			else
+				out.append(String.format("\\u%04x", (int) chars[i]));
+		}
+		if (chars.length == 0)
+			out.append(" \"");
+		out.append("\";\n\n");
+	}
+}
@@ -0,0 +1,120 @@
+package parser;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import lexer.TokenFileWriter;
+import lexer.TokenKind;
+import lexer.TokenSource;
+
+/*	Reads a binary token file (see lexer.TokenFileWriter for the format)
+	written by a Lexer in another process.
+
+	The file is memory mapped and the tokens are read straight out of it,
+	a String is only made when a name, integer or short string's snippet
+	is asked for.
+
+	public TokenFile(String fileName)
+	//maps the file, IOException if it is not a token file
+
+	public int size()
+	public int code(int i)
+	public int line(int i)
+	public String snippet(int i)
+	//any token, the TokenSource methods are for the current one
+*/
+public class TokenFile implements TokenSource
+{
+	private ByteBuffer data;
+	private int count;
+	private int offsets;	//where the string offsets start
+	private int pool;	//where the string pool starts
+	private int cur = -1;
+
+	public TokenFile(String fileName) throws IOException
+	{
+		FileInputStream in = new FileInputStream(fileName);
+		try
+		{
+			FileChannel channel = in.getChannel();
+			data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally
+		{
+			in.close();
+		}
+
+		if (data.capacity() < TokenFileWriter.HEADER || data.getInt(0) != TokenFileWriter.MAGIC)
+			throw new IOException(fileName + " is not a token file");
+		if (data.getInt(4) != TokenFileWriter.VERSION)
+			throw new IOException(fileName + " is version " + data.getInt(4) + ", only version "
+				+ TokenFileWriter.VERSION + " can be read");
+		count = data.getInt(8);
+		int strings = data.getInt(12);
+		int poolBytes = data.getInt(16);
+		if (count < 0 || strings < 0 || poolBytes < 0)
+			throw new IOException(fileName + " has a broken header");
+		//worked out in longs, so sizes from a broken file cannot wrap around
+		long end = TokenFileWriter.HEADER + (long) count * TokenFileWriter.RECORD + 4L * (strings + 1L) + poolBytes;
+		if (data.capacity() < end)
+			throw new IOException(fileName + " is cut short");
+		offsets = TokenFileWriter.HEADER + count * TokenFileWriter.RECORD;
+		pool = offsets + 4 * (strings + 1);
+	}
+
+	public int size()
+	{
+		return count;
+	}
+
+	public int code(int i)
+	{
+		return data.getInt(TokenFileWriter.HEADER + i * TokenFileWriter.RECORD);
+	}
+
+	public int line(int i)
+	{
+		return data.getInt(TokenFileWriter.HEADER + i * TokenFileWriter.RECORD + 4);
+	}
+
+	public String snippet(int i)
+	{
+		int text = data.getInt(TokenFileWriter.HEADER + i * TokenFileWriter.RECORD + 8);
+		if (text == -1)
+			return TokenKind.of(code(i)).text;
+
+		int from = data.getInt(offsets + 4 * text);
+		int to = data.getInt(offsets + 4 * (text + 1));
+		char chars[] = new char[to - from];
+		for (int k = 0; k < chars.length; k++)
+			chars[k] = (char) (data.get(pool + from + k) & 0xff);
+		return new String(chars);
+	}
+
+	public boolean next()
+	{
+		if (cur < count)
+			cur++;
+		return cur < count;
+	}
+
+	public int tokenNo()
+	{
+		return cur;
+	}
+
+	public String tokenClass()
+	{
+		return TokenKind.of(code(cur)).tokenClass;
+	}
+
+	public String snippet()
+	{
+		return snippet(cur);
+	}
+
+	public int code()
+	{
+		return code(cur);
+	}
+}
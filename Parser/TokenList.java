@@ -5,11 +5,12 @@ import java.io.FileNotFoundException;
 import java.util.Scanner;
 import java.lang.String.*;
 
-public class TokenList
+public class TokenList implements lexer.TokenSource
 {
 	private TokenNode head;
 	private TokenNode tail;
 	private int count;
+	private TokenNode cur = null;
 	
 	public TokenList(String fileName)
 	{
@@ -102,4 +103,36 @@ public class TokenList
 		return tmp;
 	}
 	
+	//TokenSource, the list is used up as the parser reads it
+	public boolean next()
+	{
+		if (isEmpty())
+		{
+			cur = null;
+			return false;
+		}
+		cur = removeFromHead();
+		return true;
+	}
+	
+	public int tokenNo()
+	{
+		return cur.tokenNo;
+	}
+	
+	public String tokenClass()
+	{
+		return cur.tokenClass;
+	}
+	
+	public String snippet()
+	{
+		return cur.snippet;
+	}
+	
+	public int code()
+	{
+		return lexer.Context.tokenCode(cur.tokenClass, cur.snippet);
+	}
+	
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package parser;
+
+import java.io.PrintStream;
+
+//Prints every step of a parse, for debugging the grammar
+public class TraceListener implements ParseListener
+{
+	private PrintStream out;
+
+	public TraceListener()
+	{
+		this(System.out);
+	}
+
+	public TraceListener(PrintStream out)
+	{
+		this.out = out;
+	}
+
+	public void shift(int state, char symbol, int tokenNo)
+	{
+		out.println("In Parse: shift " + symbol + ", going to " + state);
+	}
+
+	public void reduce(int production, int length)
+	{
+		out.println("In Parse: reduce " + production + " (" + Context.lhs(production) + ", " + length + " symbols)");
+	}
+
+	public void goTo(int state, char symbol, int next)
+	{
+		out.println("\t goto " + next + " from " + state + " on " + symbol);
+	}
+}
@@ -0,0 +1,32 @@
+package parser;
+
+/*	A parse tree whose nodes are ints, see TreeStore for what the
+	methods give. TreeStore builds one in memory and AstFile reads one
+	back from a file, TreeWriter can print either.
+*/
+public interface Tree
+{
+	public static final int NONE = -1;
+
+	public int size();
+
+	public int id(int node);
+
+	public boolean isToken(int node);
+
+	public int code(int node);
+
+	public int production(int node);
+
+	public int tokenNo(int node);
+
+	public String tokenClass(int node);
+
+	public String snippet(int node);
+
+	public int firstChild(int node);
+
+	public int nextSibling(int node);
+
+	public int parent(int node);
+}
@@ -0,0 +1,99 @@
+package parser;
+
+import java.util.Arrays;
+import lexer.TokenSource;
+
+/*	Makes a tree from the steps of a parse, the way Parser does it when it
+	builds its own, for a parse that is told to a listener: a replayed
+	ReductionLog, or a parser that builds no tree itself.
+
+	public TreeBuilder(boolean pruned)
+	//pruned leaves out the grouping symbols, like Parser.setPruned
+
+	public TreeStore getTree()
+	public int getRootNode()
+	//the tree once the parse was accepted, NONE before that
+*/
+public class TreeBuilder implements ParseListener
+{
+	private TreeStore tree = new TreeStore();
+	private boolean pruned;
+	private int states[] = new int[64];
+	private int nodes[] = new int[64];
+	private int top = 0;
+	private int shifted;	//the state the last shift went to
+	private boolean drop;	//whether the token of the last shift is left out
+	private int reduced;	//the node of the last reduce, until its goto
+	private int root = TreeStore.NONE;
+
+	public TreeBuilder(boolean pruned)
+	{
+		this.pruned = pruned;
+	}
+
+	public void shift(int state, char symbol, int tokenNo)
+	{
+		shifted = state;
+		drop = pruned && Context.isDropped(Context.column(symbol));
+	}
+
+	public void token(TokenSource token)
+	{
+		if (drop)
+		{
+			tree.skip();
+			push(shifted, TreeStore.NONE);
+			return;
+		}
+		int leaf = tree.addToken(token);
+		tree.setState(leaf, states[top]);
+		push(shifted, leaf);
+	}
+
+	public void reduce(int production, int length)
+	{
+		top -= length;
+		if (pruned)
+		{
+			int keep = Context.keep(production);
+			int kept = 0;
+			for (int i = 0; i < length; i++)
+				if ((keep & 1 << i) != 0)
+					nodes[top + 1 + kept++] = nodes[top + 1 + i];
+			length = kept;
+		}
+		reduced = tree.addNode(production, nodes, top + 1, length);
+		tree.setState(reduced, states[top]);
+	}
+
+	public void goTo(int state, char symbol, int next)
+	{
+		push(next, reduced);
+	}
+
+	public void accept()
+	{
+		root = nodes[top];
+	}
+
+	private void push(int state, int node)
+	{
+		if (++top == states.length)
+		{
+			states = Arrays.copyOf(states, top * 2);
+			nodes = Arrays.copyOf(nodes, top * 2);
+		}
+		states[top] = state;
+		nodes[top] = node;
+	}
+
+	public TreeStore getTree()
+	{
+		return tree;
+	}
+
+	public int getRootNode()
+	{
+		return root;
+	}
+}
@@ -2,47 +2,115 @@ package parser;
 
 import java.util.*;
 import lexer.TokenNode;
+import lexer.TokenKind;
 
 
-public class TreeNode extends TokenNode {
-	private LinkedList<TreeNode> children;
+public class TreeNode extends TokenNode implements Iterable<TreeNode> {
+	private static final TreeNode NO_CHILDREN[] = new TreeNode[0];
+
+	private TreeNode children[];
+	private int childCount;
 	private TreeNode parent;
-	private InfoTable tableEntry;
 	private char type; //
 
 	public TreeNode(int number, String tokenClass, String snippet) {
-		super(number, tokenClass, snippet);
-		children = new LinkedList<TreeNode>();
-		tableEntry = new InfoTable();
+		this(number, tokenClass, snippet, -1);
+	}
+
+	//leaves keep the TokenKind code of their token
+	public TreeNode(int number, String tokenClass, String snippet, int code) {
+		this(number, tokenClass, snippet, code, 0);
+	}
+
+	//children is how many children the node will get, if that is known
+	public TreeNode(int number, String tokenClass, String snippet, int code, int children) {
+		super(number, tokenClass, snippet, code);
+		this.children = children == 0 ? NO_CHILDREN : new TreeNode[children];
+		childCount = 0;
 		parent= null;
 	}
 
+	//adds a child in front of the ones that are already there
 	public void addChild(TreeNode node) {
 		node.parent = this;
-		children.addFirst(node);
+		if (childCount == children.length)
+			grow();
+		System.arraycopy(children, 0, children, 1, childCount);
+		children[0] = node;
+		childCount++;
+	}
+
+	//adds a child after the ones that are already there
+	void appendChild(TreeNode node) {
+		node.parent = this;
+		if (childCount == children.length)
+			grow();
+		children[childCount++] = node;
+	}
+
+	private void grow() {
+		children = Arrays.copyOf(children, Math.max(4, childCount * 2));
 	}
 
 	//TODO: implement addParent, so that the right hand side of the production can be linked to the left hand side
 	// Left is parent, right is children
 
-	public LinkedList<TreeNode> getChildren() {
-		return children;
+	public List<TreeNode> getChildren() {
+		return Collections.unmodifiableList(Arrays.asList(children).subList(0, childCount));
 	}
 
 	public int childrenSize()
 	{
-		return children.size();
+		return childCount;
 	}
 
 	public TreeNode getChild(int i)
 	{
-		return children.get(i);
+		if (i >= childCount)
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + childCount);
+		return children[i];
+	}
+
+	//the children, left to right
+	public Iterator<TreeNode> iterator()
+	{
+		return getChildren().iterator();
+	}
+
+	//this node and everything under it, parents before their children
+	//and left before right, the way the tree is printed
+	public Iterable<TreeNode> subtree()
+	{
+		return new Iterable<TreeNode>() {
+			public Iterator<TreeNode> iterator() {
+				return new Iterator<TreeNode>() {
+					private ArrayDeque<TreeNode> stack = new ArrayDeque<TreeNode>(Collections.singleton(TreeNode.this));
+
+					public boolean hasNext() {
+						return !stack.isEmpty();
+					}
+
+					public TreeNode next() {
+						if (stack.isEmpty())
+							throw new NoSuchElementException();
+						TreeNode cur = stack.pop();
+						for (int i = cur.childCount - 1; i >= 0; i--)
+							stack.push(cur.children[i]);
+						return cur;
+					}
+				};
+			}
+		};
 	}
 
 	public String getParent() {
 		return parent.tokenClass;
 	}
 
+	public TreeNode getParentNode() {
+		return parent;
+	}
+
 	public String toString()
 	{
 		String ret;
@@ -57,25 +125,19 @@ public class TreeNode extends TokenNode {
 
 	public void prune()
 	{
-		for (int i = 0; i < children.size(); i++)
+		for (TreeNode node : subtree())
 		{
-			if 	(children.get(i).snippet.equals("{") ||
-				children.get(i).snippet.equals("}") ||
-				children.get(i).snippet.equals("(") ||
-				children.get(i).snippet.equals(")") ||
-				children.get(i).snippet.equals(";") ||
-				children.get(i).snippet.equals(",") )
+			//{ } ( ) ; and , are grouping symbols
+			int kept = 0;
+			for (int i = 0; i < node.childCount; i++)
 			{
-				children.remove(i);
-				i = 0;
+				TreeNode child = node.children[i];
+				if (child.code < 0 || !TokenKind.of(child.code).isGrouping())
+					node.children[kept++] = child;
 			}
+			Arrays.fill(node.children, kept, node.childCount, null);
+			node.childCount = kept;
 		}
-
-		for (int i = 0; i < children.size(); i++)
-		{
-			children.get(i).prune();
-		}
-
 	}
 
 }
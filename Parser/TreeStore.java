@@ -0,0 +1,316 @@
+package parser;
+
+import java.util.*;
+import lexer.TokenKind;
+import lexer.TokenSource;
+
+/*	The parse tree, kept as parallel int arrays instead of one object
+	per node. A node is its index in the arrays.
+
+	Nodes are added in the order the parser makes them, so the children
+	of a node always come before it. A node is either a token (a leaf)
+	or the left hand side of a production, and links to its first child,
+	its next sibling and its parent (NONE if there is none).
+
+	Only names, integers and short strings keep their snippet, as an
+	index into a pool of strings where each one is kept once. Every
+	other kind of token always has the same text (see TokenKind.text).
+	Each store has a pool of its own that only it adds to, nodes copied
+	from another store put their text in it again.
+
+	public int id(int node)
+	//the node's number in the printed tree, nodes are numbered in the
+		order they are added, counting the ones that were skipped
+
+	public boolean isToken(int node)
+	public int code(int node)
+	//the TokenKind code of a token, -1 for the other nodes
+	public int production(int node)
+	//the production that made a node, -1 for tokens
+	public int tokenNo(int node)
+	//the number of the token in the token stream, -1 if it is not a token
+	public String tokenClass(int node)
+	public String snippet(int node)
+	//what a TreeNode would have, the production's left hand side and
+		"none" for the nodes that are not tokens
+
+	public TreeNode toTreeNode(int node)
+	//makes TreeNodes for a whole subtree, for the code that walks TreeNodes
+
+	public int state(int node)
+	//the parser state the node was pushed on top of, see setState
+	public int leaf(int tokenNo)
+	//the leaf of a token, NONE if the tree has none
+
+	public int copy(TreeStore from, int first, int last, int shift)
+	//copies nodes of another tree, for Parser to reuse what did not change
+*/
+public class TreeStore implements Tree
+{
+
+	//a token's kind is its TokenKind code, any other node's is ~production
+	private int id[];
+	private int kind[];
+	private int token[];
+	private int text[];
+	private int firstChild[];
+	private int nextSibling[];
+	private int parent[];
+	private int state[];
+	private int count;
+	private int lastId;
+
+	//the leaf of every token, by token number
+	private int leaf[];
+
+	private ArrayList<String> strings = new ArrayList<String>();
+	private HashMap<String, Integer> stringIndex = new HashMap<String, Integer>();
+
+	public TreeStore()
+	{
+		this(64);
+	}
+
+	public TreeStore(int capacity)
+	{
+		id = new int[capacity];
+		kind = new int[capacity];
+		token = new int[capacity];
+		text = new int[capacity];
+		firstChild = new int[capacity];
+		nextSibling = new int[capacity];
+		parent = new int[capacity];
+		state = new int[capacity];
+		leaf = new int[capacity];
+		Arrays.fill(leaf, NONE);
+		count = 0;
+		lastId = 0;
+	}
+
+	//adds the token the source is on as a leaf
+	public int addToken(TokenSource source)
+	{
+		int code = source.code();
+		String snippet = TokenKind.of(code).text == null ? source.snippet() : null;
+		return addToken(code, source.tokenNo(), snippet);
+	}
+
+	public int addToken(int code, int tokenNo, String snippet)
+	{
+		int node = newNode();
+		kind[node] = code;
+		token[node] = tokenNo;
+		text[node] = TokenKind.of(code).text == null ? intern(snippet) : NONE;
+		setLeaf(tokenNo, node);
+		return node;
+	}
+
+	//adds a node for production whose children are the count nodes in
+	//children[from] up to children[from + count - 1], left to right
+	public int addNode(int production, int children[], int from, int count)
+	{
+		int node = newNode();
+		kind[node] = ~production;
+		token[node] = NONE;
+		text[node] = NONE;
+		int next = NONE;
+		for (int i = from + count - 1; i >= from; i--)
+		{
+			int child = children[i];
+			parent[child] = node;
+			nextSibling[child] = next;
+			next = child;
+		}
+		firstChild[node] = next;
+		return node;
+	}
+
+	//copies the nodes first up to last of another store to the end of this
+	//one and gives them new IDs. Links to nodes that were not copied become
+	//NONE, the token numbers move by shift. Gives where last went.
+	public int copy(TreeStore from, int first, int last, int shift)
+	{
+		int n = last - first + 1;
+		while (count + n > kind.length)
+			grow();
+		int move = count - first;
+		System.arraycopy(from.kind, first, kind, count, n);
+		System.arraycopy(from.state, first, state, count, n);
+		for (int i = 0; i < n; i++)
+		{
+			int node = count + i, old = first + i;
+			id[node] = ++lastId;
+			token[node] = from.token[old] == NONE ? NONE : from.token[old] + shift;
+			text[node] = from.text[old] == NONE || from.strings == strings ? from.text[old] : intern(from.strings.get(from.text[old]));
+			firstChild[node] = moved(from.firstChild[old], first, last, move);
+			nextSibling[node] = moved(from.nextSibling[old], first, last, move);
+			parent[node] = moved(from.parent[old], first, last, move);
+			setLeaf(token[node], node);
+		}
+		count += n;
+		return count - 1;
+	}
+
+	private static int moved(int node, int first, int last, int move)
+	{
+		return node < first || node > last ? NONE : node + move;
+	}
+
+	private void setLeaf(int tokenNo, int node)
+	{
+		if (tokenNo < 0)
+			return;
+		if (tokenNo >= leaf.length)
+		{
+			int size = leaf.length;
+			leaf = Arrays.copyOf(leaf, Math.max(tokenNo + 1, size * 2));
+			Arrays.fill(leaf, size, leaf.length, NONE);
+		}
+		leaf[tokenNo] = node;
+	}
+
+	private int newNode()
+	{
+		if (count == kind.length)
+			grow();
+		int node = count++;
+		id[node] = ++lastId;
+		firstChild[node] = NONE;
+		nextSibling[node] = NONE;
+		parent[node] = NONE;
+		return node;
+	}
+
+	private int intern(String snippet)
+	{
+		Integer index = stringIndex.get(snippet);
+		if (index == null)
+		{
+			index = strings.size();
+			strings.add(snippet);
+			stringIndex.put(snippet, index);
+		}
+		return index;
+	}
+
+	//uses up an ID without making a node, for a token that a pruned tree
+	//leaves out, so the other nodes keep the IDs they have in the full tree
+	public void skip()
+	{
+		lastId++;
+	}
+
+	public int size()
+	{
+		return count;
+	}
+
+	//IDs start at 1, the first one has always gone to the eof token
+	public int id(int node)
+	{
+		return id[node];
+	}
+
+	public boolean isToken(int node)
+	{
+		return kind[node] >= 0;
+	}
+
+	public int code(int node)
+	{
+		return kind[node] >= 0 ? kind[node] : -1;
+	}
+
+	public int production(int node)
+	{
+		return kind[node] < 0 ? ~kind[node] : -1;
+	}
+
+	public int tokenNo(int node)
+	{
+		return token[node];
+	}
+
+	public int firstChild(int node)
+	{
+		return firstChild[node];
+	}
+
+	public int nextSibling(int node)
+	{
+		return nextSibling[node];
+	}
+
+	public int parent(int node)
+	{
+		return parent[node];
+	}
+
+	//the parser state under the node on the stack, the one its first token
+	//was shifted in. A subtree that starts in the same state on the same
+	//tokens is always parsed the same way.
+	public int state(int node)
+	{
+		return state[node];
+	}
+
+	public void setState(int node, int state)
+	{
+		this.state[node] = state;
+	}
+
+	public int leaf(int tokenNo)
+	{
+		return tokenNo >= 0 && tokenNo < leaf.length ? leaf[tokenNo] : NONE;
+	}
+
+	public String tokenClass(int node)
+	{
+		if (kind[node] < 0)
+			return Context.lhsName(~kind[node]);
+		return TokenKind.of(kind[node]).tokenClass;
+	}
+
+	public String snippet(int node)
+	{
+		if (kind[node] < 0)
+			return "none";
+		if (text[node] != NONE)
+			return strings.get(text[node]);
+		return TokenKind.of(kind[node]).text;
+	}
+
+	public TreeNode toTreeNode(int node)
+	{
+		//children always come before their parent, so going up from the
+		//first node of the subtree every child already has its TreeNode
+		int first = node;
+		while (firstChild[first] != NONE)
+			first = firstChild[first];
+
+		TreeNode view[] = new TreeNode[node - first + 1];
+		for (int i = first; i <= node; i++)
+		{
+			int children = 0;
+			for (int child = firstChild[i]; child != NONE; child = nextSibling[child])
+				children++;
+			view[i - first] = new TreeNode(id(i), tokenClass(i), snippet(i), code(i), children);
+			for (int child = firstChild[i]; child != NONE; child = nextSibling[child])
+				view[i - first].appendChild(view[child - first]);
+		}
+		return view[node - first];
+	}
+
+	private void grow()
+	{
+		int size = kind.length * 2;
+		id = Arrays.copyOf(id, size);
+		kind = Arrays.copyOf(kind, size);
+		token = Arrays.copyOf(token, size);
+		text = Arrays.copyOf(text, size);
+		firstChild = Arrays.copyOf(firstChild, size);
+		nextSibling = Arrays.copyOf(nextSibling, size);
+		parent = Arrays.copyOf(parent, size);
+		state = Arrays.copyOf(state, size);
+	}
+}
@@ -0,0 +1,146 @@
+package parser;
+
+import java.io.*;
+import java.util.*;
+
+/*	Writes a tree in the ParseTree file format, one line per node, parents
+	before their children and every level indented by "---":
+
+		||Node 7	A	none Parent: I||
+		---||Node 3	S	none Parent: A||
+
+	The tree is walked with a stack of its own instead of recursion, and
+	every line goes straight to the output, so a deep or big tree needs
+	no more memory than the path down to the node being written.
+
+	public void write(TreeNode root)
+	public void write(Tree tree, int root)
+	//writes the tree under root, the Tree one does not need any TreeNodes
+
+	public static void write(TreeNode root, String fileName)
+	public static void write(Tree tree, int root, String fileName)
+	//writes the tree to a file through a buffer
+*/
+public class TreeWriter
+{
+	private static final String LEVEL = "---";
+
+	private Appendable out;
+	private StringBuilder indent = new StringBuilder();
+
+	public TreeWriter(Appendable out)
+	{
+		this.out = out;
+	}
+
+	public void write(TreeNode root) throws IOException
+	{
+		write(root, 0);
+	}
+
+	public void write(TreeNode root, int depth) throws IOException
+	{
+		if (root == null)
+			return;
+		TreeNode nodes[] = new TreeNode[64];
+		int depths[] = new int[64];
+		int top = 0;
+		nodes[0] = root;
+		depths[0] = depth;
+		while (top >= 0)
+		{
+			TreeNode cur = nodes[top];
+			nodes[top] = null;
+			int d = depths[top--];
+			//the root is written as the top of its own tree, like the Tree one
+			TreeNode parent = cur == root ? null : cur.getParentNode();
+			line(d, cur.tokenNo, cur.tokenClass, cur.snippet, parent == null ? null : parent.tokenClass);
+
+			//the children go on the stack right to left, so the first comes off first
+			for (int i = cur.childrenSize() - 1; i >= 0; i--)
+			{
+				if (++top == nodes.length)
+				{
+					nodes = Arrays.copyOf(nodes, top * 2);
+					depths = Arrays.copyOf(depths, top * 2);
+				}
+				nodes[top] = cur.getChild(i);
+				depths[top] = d + 1;
+			}
+		}
+	}
+
+	public void write(Tree tree, int root) throws IOException
+	{
+		if (root == Tree.NONE)
+			return;
+		int nodes[] = new int[64];
+		int depths[] = new int[64];
+		int top = 0;
+		nodes[0] = root;
+		depths[0] = 0;
+		while (top >= 0)
+		{
+			int cur = nodes[top];
+			int d = depths[top--];
+			int parent = cur == root ? Tree.NONE : tree.parent(cur);
+			line(d, tree.id(cur), tree.tokenClass(cur), tree.snippet(cur),
+				parent == Tree.NONE ? null : tree.tokenClass(parent));
+
+			//the children go on the stack right to left, so the first comes off first
+			int first = top + 1;
+			for (int child = tree.firstChild(cur); child != Tree.NONE; child = tree.nextSibling(child))
+			{
+				if (++top == nodes.length)
+				{
+					nodes = Arrays.copyOf(nodes, top * 2);
+					depths = Arrays.copyOf(depths, top * 2);
+				}
+				nodes[top] = child;
+				depths[top] = d + 1;
+			}
+			for (int i = first, j = top; i < j; i++, j--)
+			{
+				int tmp = nodes[i];
+				nodes[i] = nodes[j];
+				nodes[j] = tmp;
+			}
+		}
+	}
+
+	//the same line TreeNode.toString gives
+	private void line(int depth, int id, String tokenClass, String snippet, String parent) throws IOException
+	{
+		while (indent.length() < depth * LEVEL.length())
+			indent.append(LEVEL);
+		out.append(indent, 0, depth * LEVEL.length());
+		out.append("||Node ").append(Integer.toString(id)).append('\t').append(tokenClass)
+			.append('\t').append(snippet).append(" Parent: ").append(parent == null ? "nun" : parent).append("||\n");
+	}
+
+	public static void write(TreeNode root, String fileName) throws IOException
+	{
+		BufferedWriter bw = new BufferedWriter(new FileWriter(fileName));
+		try
+		{
+			new TreeWriter(bw).write(root);
+		}
+		finally
+		{
+			bw.close();
+		}
+	}
+
+	public static void write(Tree tree, int root, String fileName) throws IOException
+	{
+		BufferedWriter bw = new BufferedWriter(new FileWriter(fileName));
+		try
+		{
+			new TreeWriter(bw).write(tree, root);
+		}
+		finally
+		{
+			bw.close();
+		}
+	}
+}
@@ -0,0 +1,15 @@
+import parser.BatchCompiler;
+
+//Lexes, parses and type checks many files at once, with the options of
+//parser.BatchCompiler:
+//	java BatchCheck [-tree] [-pruned] [-ast] [-pipe] [-split] [-threads N] FILE|DIR ...
+//A file with type errors fails with all of them in its result.
+public class BatchCheck
+{
+	public static void main(String[] args) throws Exception
+	{
+		BatchCompiler compiler = new BatchCompiler();
+		compiler.addPhase(TypeChecker.PHASE);
+		BatchCompiler.run(compiler, "BatchCheck", args);
+	}
+}
@@ -1,6 +1,8 @@
 import lexer.Lexer;
+import lexer.LexicalException;
 import parser.Parser;
 import java.io.*;
+import java.util.List;
 import java.util.Scanner;
 
 //here is the main file which we will run on the demo date for typechecking
@@ -13,28 +15,44 @@ public class Main
 			} else {
 				//A Lexer takes in a fileName of the file that needs to be processed.
 				//This is the source file of spl code.
-				//A lexer then throws an error or produces a file called
-				//"lexeroutput" in the directory. This file is ready to be processed
-				//by the parser.
-				Lexer lex = new Lexer(args[0]);
+				//A lexer then throws an error or keeps the tokens in memory, ready
+				//to be pulled by the parser. lex.toFile() still writes the
+				//"lexeroutput" file if it is needed.
+				Lexer lex;
+				try {
+					lex = new Lexer(args[0]);
+				} catch (LexicalException e) {
+					System.out.println(e.getMessage());
+					System.exit(1);
+					return;
+				}
+				if (lex.readFailed())
+					System.exit(1);
 				///System.out.print(lex);
 
-				//A Parser reads the "lexeroutput" file and produces a syntax tree
+				//A Parser pulls the tokens from the lexer and produces a syntax tree
 				//which has a root and a infoTable already built in. These two
 				//attributes are accessed as follows:
 				//	prsr.getRoot()
 				//	prsr.getTable()
-				Parser prsr = new Parser();
+				//prsr.getAst() is the same tree as a node class for every
+				//syntactic category, which is what the typechecker visits.
+				Parser prsr = new Parser(lex.getTokens());
 				if (prsr.parse())
 				{
 					///prsr.writeToTreeFile();
 					///prsr.writeToPrunedTreeFile();
-				}
 
-				//The resulting tree and table is then passed to the typechecker
-				//which does the algorithm and displays appropriate messages
-				//TypeChecker tc = new TypeChecker();
-				//tc.doTypeChecking(prsr.getRoot(), prsr.getTable());
+					//The resulting tree and table is then passed to the typechecker
+					//which does the algorithm and displays appropriate messages
+					TypeChecker tc = new TypeChecker();
+					List<String> errors = tc.doTypeChecking(prsr.getAst(), prsr.getTable());
+					for (String error : errors)
+						System.out.println(error);
+					System.out.println(TypeChecker.summary(errors));
+					if (!errors.isEmpty())
+						System.exit(1);
+				}
 			}
 
 	}
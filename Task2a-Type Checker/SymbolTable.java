@@ -1,12 +1,16 @@
+import java.util.HashMap;
 import java.util.Stack;
 
 public class SymbolTable
 {
-	private Stack<STNode> stack;
+	private Stack<STNode> stack = new Stack<STNode>();
+	//the innermost binding of every name, so a lookup does not walk the stack
+	private HashMap<String, STNode> innermost = new HashMap<String, STNode>();
 	private class STNode
 	{
 		public String name;
 		public Character type;
+		public STNode shadowed;	//the binding of the same name this one hides
 		
 		STNode(String name, Character type)		
 		{
@@ -22,26 +26,33 @@ public class SymbolTable
 	
 	public void bind(String name, Character type)
 	{
-		stack.push(new STNode(name, type));
+		STNode node = new STNode(name, type);
+		node.shadowed = innermost.put(name, node);
+		stack.push(node);
 	}
 	
 	public Character lookup(String name)
 	{
-		for (int i = 0; i < stack.size(); i++)
-		{
-			if (stack.elementAt(i).name.equals(name))
-				return stack.elementAt(i).type;
-		}
-		return "!";
+		STNode node = innermost.get(name);
+		return node == null ? '!' : node.type;
 	}
 	
 	public void enter()
 	{
-		stack.push(new STNode("mark", '#'));		
+		stack.push(new STNode(null, '#'));	//the mark, it has no name so no name can be it
 	}
 	
 	public void exit()
 	{
-		while (!stack.empty() && stack.pop().name != "mark") {};
+		while (!stack.empty())
+		{
+			STNode node = stack.pop();
+			if (node.name == null)
+				break;
+			if (node.shadowed == null)
+				innermost.remove(node.name);
+			else
+				innermost.put(node.name, node.shadowed);
+		}
 	}
 }
\ No newline at end of file
@@ -1,116 +1,368 @@
-
 import parser.*;
+import lexer.TokenKind;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 
-public class TypeChecker {
-	private char [] validTypes = {
-		'\0', // signals error state i.e unbounded 0
-		'w', // well-typed 1
-		'p', // procedure 2
-		'n', // numbers 3
-		'o', // output 4
-		's', // strings 5
-		'b'	 // booleans 6
-	};
+/**
+ * Gives every node of the syntax tree a type and reports the nodes that
+ * cannot have one. It is an Ast.Visitor, so every kind of node has a visit
+ * of its own below and the compiler says so if one is missing, and each
+ * visit returns the type of its node.
+ *
+ * The rules, and why:
+ * - integers are numbers and short strings are strings, add, sub and mult
+ *   take two numbers and give one, a comparison with < or > takes numbers
+ * - a variable has the type of what is first assigned or read into it and
+ *   keeps it. SPL has no declarations and the parser cannot tell a string
+ *   variable from a number variable where either could be (x = 5 is an
+ *   SVar target), so the first value is the only thing that says which
+ *   it is. Only assignments, input and the start of a for loop give a
+ *   name a value, any other use of a name without one is an error
+ * - input reads an integer, so its variable is a number
+ * - eq compares two variables of the same type, a number is never equal
+ *   to a string so comparing them is a mistake
+ * - not, and and or take booleans, and if and while need one
+ * - a call has to name a procedure of its own scope or one around it,
+ *   and two procedures of one scope with the same name would make the
+ *   calls ambiguous, so that is an error too
+ *
+ * Nothing is printed, the errors are given back for the caller to report.
+ * PHASE type checks every file a BatchCompiler parses, see BatchCheck.
+ */
+public class TypeChecker implements Ast.Visitor<Character> {
+	private static final char ERROR = '\0';	// signals error state i.e unbounded
+	private static final char WELL_TYPED = 'w';
+	private static final char PROC = 'p';
+	private static final char NUMBER = 'n';
+	private static final char STRING = 's';
+	private static final char BOOLEAN = 'b';
+	private static final char UNBOUND = '!';	// what SymbolTable.lookup gives for a name it does not have
 
-	public void doTypeChecking(TreeNode node, InfoTable table){
-		initializeTable(node, table);
-		visitAST(table);
-	}
+	private SymbolTable symbols;
+	private InfoTable table;
+	private ArrayList<String> errors;
 
 	/**
-	 * This function will recursively walk through the Abstract Syntaxt Tree (AST)
-	 * and create table entries for each node within the AST
-	 * @param node
-	 * @param table
+	 * A TypeChecker for every file, so the files can be checked on many threads at once
 	 */
-	private void initializeTable(TreeNode node, InfoTable table) {
-		if(node == null){ return; }
-		table.insert(node.tokenNo, node.tokenClass, node.snippet);
-		if(node.childrenSize() > 0){
-			int size = node.childrenSize();
-			for(int i = 0; i < size; i++){
-				initializeTable(node.getChild(i), table);
+	public static final BatchCompiler.Phase PHASE = new BatchCompiler.Phase() {
+		public String run(String file, Parser parser){
+			List<String> errors = new TypeChecker().doTypeChecking(parser.getAst(), parser.getTable());
+			if (errors.isEmpty()) {
+				return null;
+			}
+			StringBuilder message = new StringBuilder(summary(errors));
+			for (String error : errors) {
+				message.append("\n\t").append(error);
 			}
+			return message.toString();
 		}
-	}
+	};
 
 	/**
-	 * This function will recursively walk through the Abstract Syntaxt Tree (AST)
-	 * and based on the Grammar rules defined for the SPL language,
-	 * it will assign types to each node in the AST if successful, or report an error
-	 * @param node
+	 * Checks the whole program and puts the type of every node in the table
+	 * @param root the tree from Parser.getAst()
 	 * @param table
+	 * @return the type errors in the order they were found, empty if the program is well-typed
+	 */
+	public List<String> doTypeChecking(Ast root, InfoTable table){
+		this.symbols = new SymbolTable();
+		this.table = table;
+		errors = new ArrayList<String>();
+		root.accept(this);
+		return errors;
+	}
+
+	/**
+	 * @return one line that says how many errors there are
 	 */
-	private void visitAST(TreeNode node, InfoTable table){
-		// trivial case
-		if(node == null){ return; }
-		// Number Syntactic Category Symbol: b
-		if(node.tokenClass.equals("number")){
-			if(node.type.equals('\0')){
-				node.type = validTypes[3];
-				table.setType(findIndex(node.tokenNo, table), validTypes[3]);
+	public static String summary(List<String> errors){
+		if (errors.isEmpty()) {
+			return "No type errors found";
+		}
+		return errors.size() + " type error" + (errors.size() == 1 ? "" : "s") + " found";
+	}
+
+	public Character visit(Ast.Program node){
+		return record(node, node.prog.accept(this) == WELL_TYPED ? WELL_TYPED : ERROR);
+	}
+
+	// the procedures can be called before they are defined, so their names are bound first
+	public Character visit(Ast.Prog node){
+		symbols.enter();
+		HashSet<String> procs = new HashSet<String>();
+		for (Ast.ProcDefs d = node.procDefs; d != null; d = d.procDefs) {
+			String name = d.proc.name.snippet;
+			if (!procs.add(name)) {
+				reportError(d.proc, "procedure " + name + " is defined twice");
 			}
+			symbols.bind(name, PROC);
 		}
+		char type = node.code.accept(this);
+		if (node.procDefs != null && node.procDefs.accept(this) != WELL_TYPED) {
+			type = ERROR;
+		}
+		symbols.exit();
+		return record(node, type);
+	}
 
-		// user-defined name Syntactic Category Symbol: u
-		if(node.tokenClass.equal("user-defined name")){
-			if(node.getParent().equals("N")){
-				node.type = validTypes[3]; // number
-				table.setType(findIndex(node.tokenNo, table), validTypes[3]);
-			} else if(node.getParent().equals("S")){
-				node.type = validTypes[5]; // string
-				table.setType(findIndex(node.tokenNo, table), validTypes[5]);
-			} else {
-				// report an error
+	// D -> R D is one node per procedure, it is walked as a list and not recursively
+	public Character visit(Ast.ProcDefs node){
+		ArrayList<Ast.ProcDefs> list = new ArrayList<Ast.ProcDefs>();
+		for (Ast.ProcDefs d = node; d != null; d = d.procDefs) {
+			list.add(d);
+		}
+		char type = WELL_TYPED;
+		for (int i = list.size() - 1; i >= 0; i--) {
+			if (list.get(i).proc.accept(this) != PROC) {
+				type = ERROR;
 			}
+			record(list.get(i), type);
 		}
+		return type;
+	}
 
-		// NVAR Syntactic Category Symbol: N
-		if(node.tokenClass.equals("N")){
-			if(node.type.equals('\0')){
-				if (node.getChild(0).type == validTypes[3]){
-					node.type = validTypes[3];
-					table.setType(findIndex(node.tokenNo, table), validTypes[3]);
-				} else {
-					// guess a type
-					//reportError();
-				}
+	public Character visit(Ast.Proc node){
+		node.name.accept(this);
+		return record(node, node.prog.accept(this) == WELL_TYPED ? PROC : ERROR);
+	}
+
+	// C -> C ; I is one node per statement, it is walked as a list and not recursively
+	public Character visit(Ast.Code node){
+		ArrayList<Ast.Code> list = new ArrayList<Ast.Code>();
+		for (Ast.Code c = node; c != null; c = c.code) {
+			list.add(c);
+		}
+		char type = WELL_TYPED;
+		for (int i = list.size() - 1; i >= 0; i--) {
+			if (list.get(i).instr.accept(this) != WELL_TYPED) {
+				type = ERROR;
+			}
+			record(list.get(i), type);
+		}
+		return type;
+	}
+
+	public Character visit(Ast.Instr node){
+		Ast child = node.io != null ? node.io : node.assign != null ? node.assign
+			: node.condBranch != null ? node.condBranch : node.condLoop != null ? node.condLoop : node.call;
+		if (child == null) {
+			return record(node, WELL_TYPED);	// halt
+		}
+		return record(node, child.accept(this) != ERROR ? WELL_TYPED : ERROR);
+	}
+
+	// input reads a number into its variable, output writes either
+	public Character visit(Ast.Io node){
+		Ast.Token name = node.var.sVar != null ? node.var.sVar.name : node.var.nVar.name;
+		boolean input = node.production == Ast.Io.INPUT;
+		if (input && symbols.lookup(name.snippet) == UNBOUND) {
+			symbols.bind(name.snippet, NUMBER);
+		}
+		char type = node.var.accept(this);
+		if (input && type != NUMBER && type != ERROR) {
+			reportError(node, "input needs a number variable, " + name.snippet + " is a string");
+			type = ERROR;
+		}
+		return record(node, type == ERROR ? ERROR : WELL_TYPED);
+	}
+
+	public Character visit(Ast.Call node){
+		char type = node.name.accept(this);
+		if (type != PROC) {
+			reportError(node, node.name.snippet + " is not a procedure");
+			type = ERROR;
+		}
+		return record(node, type);
+	}
+
+	public Character visit(Ast.Var node){
+		return record(node, node.sVar != null ? node.sVar.accept(this) : node.nVar.accept(this));
+	}
+
+	public Character visit(Ast.SVar node){
+		return record(node, variable(node, node.name));
+	}
+
+	// only used where a number has to be
+	public Character visit(Ast.NVar node){
+		char type = variable(node, node.name);
+		if (type != NUMBER && type != ERROR) {
+			reportError(node, node.name.snippet + " is used as a number but it is a string");
+			type = ERROR;
+		}
+		return record(node, type);
+	}
+
+	public Character visit(Ast.Assign node){
+		char type = node.value.accept(this);
+		Ast.Token name = node.target.sVar != null ? node.target.sVar.name : node.target.nVar.name;
+		if (symbols.lookup(name.snippet) == UNBOUND) {
+			if (type == ERROR) {
+				// the value is wrong and has been reported, the target only gets no type
+				unassigned(node.target, name);
+				return record(node, ERROR);
 			}
+			symbols.bind(name.snippet, type);
+		}
+		char target = node.target.accept(this);
+		if (type == ERROR || target == ERROR) {
+			return record(node, ERROR);
+		}
+		if (target != type) {
+			reportError(node, name.snippet + " is a " + typeName(target) + " and cannot be given a " + typeName(type));
+			return record(node, ERROR);
 		}
+		return record(node, WELL_TYPED);
+	}
+
+	public Character visit(Ast.Value node){
+		Ast child = node.sVar != null ? node.sVar : node.shortString != null ? node.shortString : node.numExpr;
+		return record(node, child.accept(this));
+	}
+
+	public Character visit(Ast.Target node){
+		return record(node, node.sVar != null ? node.sVar.accept(this) : node.nVar.accept(this));
+	}
 
-		// Calculation Syntactic Category Symbol: L
-		if(node.tokenClass.equals('L')){
-			if(node.type.equals('\0')){
-				if(node.getChild(1).type == node.getChild(2).type && node.getChild(2).type.equals('n')){
-					node.type = validTypes[3]; // number
-					table.setType(node.tokenNo, validTypes[3]);
-				} else {
-					// guess a type
-					// reportError();
-					System.out.println("Calc TypeErr");
+	public Character visit(Ast.NumExpr node){
+		Ast child = node.nVar != null ? node.nVar : node.integer != null ? node.integer : node.calc;
+		return record(node, child.accept(this));
+	}
+
+	public Character visit(Ast.Calc node){
+		char left = node.numExpr1.accept(this);
+		char right = node.numExpr2.accept(this);
+		if (left == NUMBER && right == NUMBER) {
+			return record(node, NUMBER);
+		}
+		if (left != ERROR && right != ERROR) {
+			reportError(node, "a calculation needs two numbers");
+		}
+		return record(node, ERROR);
+	}
+
+	public Character visit(Ast.CondBranch node){
+		boolean ok = condition(node.bool);
+		ok &= node.code1.accept(this) == WELL_TYPED;
+		if (node.code2 != null) {
+			ok &= node.code2.accept(this) == WELL_TYPED;
+		}
+		return record(node, ok ? WELL_TYPED : ERROR);
+	}
+
+	public Character visit(Ast.Bool node){
+		char type;
+		switch (node.production) {
+			case Ast.Bool.EQ: {
+				// eq compares two variables of the same type
+				char left = node.var1.accept(this);
+				char right = node.var2.accept(this);
+				type = left == ERROR || right == ERROR ? ERROR : left == right ? BOOLEAN : ERROR;
+				if (left != ERROR && right != ERROR && left != right) {
+					reportError(node, "eq compares a " + typeName(left) + " with a " + typeName(right));
 				}
+				break;
+			}
+			case Ast.Bool.LESS:
+			case Ast.Bool.GREATER: {
+				char left = node.nVar1.accept(this);
+				char right = node.nVar2.accept(this);
+				type = left == NUMBER && right == NUMBER ? BOOLEAN : ERROR;
+				break;
 			}
+			case Ast.Bool.NOT:
+			case Ast.Bool.AND:
+			case Ast.Bool.OR: {
+				type = condition(node.bool1) ? BOOLEAN : ERROR;
+				if (node.bool2 != null && !condition(node.bool2)) {
+					type = ERROR;
+				}
+				break;
+			}
+			default:
+				throw new IllegalStateException("Bool node from production " + node.production);
 		}
+		return record(node, type);
+	}
 
-		//
+	public Character visit(Ast.CondLoop node){
+		boolean ok = true;
+		if (node.bool != null) {
+			ok = condition(node.bool);
+		} else {
+			// for (i = 0; i < n; i = add(i, 1)), every variable in it is a number
+			// and the first one is assigned
+			if (symbols.lookup(node.nVar1.name.snippet) == UNBOUND) {
+				symbols.bind(node.nVar1.name.snippet, NUMBER);
+			}
+			Ast [] numbers = { node.nVar1, node.integer1, node.nVar2, node.integer2, node.nVar3, node.nVar4, node.integer3 };
+			for (Ast n : numbers) {
+				ok &= n.accept(this) == NUMBER;
+			}
+		}
+		ok &= node.code.accept(this) == WELL_TYPED;
+		return record(node, ok ? WELL_TYPED : ERROR);
 	}
 
-	private void reportError(TreeNode node){
-		// do some error handling
+	// names get the type they are bound to, integers and short strings their own
+	public Character visit(Ast.Token node){
+		char type;
+		if (node.code == TokenKind.INTEGER.code()) {
+			type = NUMBER;
+		} else if (node.code == TokenKind.SHORT_STRING.code()) {
+			type = STRING;
+		} else {
+			char bound = symbols.lookup(node.snippet);
+			type = bound == UNBOUND ? ERROR : bound;
+		}
+		return record(node, type);
 	}
 
-	private int findIndex(TableItem node, InfoTable table){
-		return table.index(node);
+	private boolean condition(Ast.Bool node){
+		char type = node.accept(this);
+		if (type != BOOLEAN && type != ERROR) {
+			reportError(node, "a condition has to be a boolean");
+		}
+		return type == BOOLEAN;
+	}
+
+	// the type of a variable, which has to have been given one already
+	private char variable(Ast node, Ast.Token name){
+		char type = name.accept(this);
+		if (type == ERROR) {
+			reportError(node, name.snippet + " is used before it has a value");
+		} else if (type == PROC) {
+			reportError(node, name.snippet + " is a procedure and not a variable");
+			type = ERROR;
+		}
+		return type;
+	}
+
+	// the nodes of a target that could not be given a type, without an error of their own
+	private void unassigned(Ast.Target target, Ast.Token name){
+		record(name, ERROR);
+		record(target.sVar != null ? target.sVar : target.nVar, ERROR);
+		record(target, ERROR);
+	}
+
+	private char record(Ast node, char type){
+		table.setType(table.insert(node.id, node.tokenClass(), node.snippet()), type);
+		return type;
 	}
-}
 
-///table has the following interface
-//~ public class InfoTable
-//~ {
-	//~ public insert(int ID, String snippet, String type)
-	//~ public getType(int ID)
-	//~ public setType(int ID, String type)
-	//~ public getText(int ID)
-//~ }
+	private String typeName(char type){
+		switch (type) {
+			case NUMBER: return "number";
+			case STRING: return "string";
+			case BOOLEAN: return "boolean";
+			case PROC: return "procedure";
+			default: return "statement";
+		}
+	}
 
-///the TreeNode and the TokenNode are also relevant
+	private void reportError(Ast node, String message){
+		errors.add("Type error at node " + node.id + " (" + node.tokenClass() + "): " + message);
+	}
+}